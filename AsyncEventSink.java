@@ -0,0 +1,136 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Класс Асинхронный журнал (AsyncEventSink)
+ *
+ * Передает события другому получателю через фоновый поток записи.
+ * Потоки симуляции кладут события в ограниченный кольцевой буфер без блокировок:
+ * место в буфере занимается через CAS по общему счетчику, а номер поколения
+ * ячейки сообщает фоновому потоку, что событие уже записано.
+ * Если буфер заполнен, публикующий поток ждет, пока фоновый поток его освободит.
+ *
+ * События, опубликованные после close() или после остановки фонового потока,
+ * отбрасываются - в том числе те, что ждали места в заполненном буфере.
+ */
+public class AsyncEventSink implements EventSink {
+    private static final long IDLE_PARK_NANOS = 100_000;
+
+    private final EventSink delegate;
+    private final int mask;
+    private final AtomicReferenceArray<LogEvent> buffer;
+    private final AtomicLongArray sequences;        // Поколение каждой ячейки
+    private final AtomicLong tail = new AtomicLong(); // Следующая позиция для публикации
+    private volatile long head;                     // Следующая позиция для записи
+    private volatile boolean running = true;
+    private final Thread writer;
+
+    /**
+     * Конструктор
+     * @param delegate получатель, которому фоновый поток передает события
+     * @param capacity размер буфера (округляется вверх до степени двойки)
+     */
+    public AsyncEventSink(EventSink delegate, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.delegate = delegate;
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.writer = new Thread(this::drainLoop, "simulation-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void publish(LogEvent event) {
+        if (!running) {
+            return;
+        }
+        long position;
+        int slot;
+        while (true) {
+            position = tail.get();
+            slot = (int) (position & mask);
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                // Буфер заполнен - ждем фоновый поток, пока он еще работает
+                if (!running || !writer.isAlive()) {
+                    return;
+                }
+                LockSupport.unpark(writer);
+                Thread.onSpinWait();
+            }
+        }
+        buffer.set(slot, event);
+        sequences.set(slot, position + 1);
+    }
+
+    /**
+     * Дождаться записи всех опубликованных событий
+     */
+    public void flush() {
+        long target = tail.get();
+        while (head < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    /**
+     * Цикл фонового потока: переносит события из буфера в delegate
+     */
+    private void drainLoop() {
+        while (true) {
+            if (!drainAvailable()) {
+                if (!running && head == tail.get()) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Передать все уже записанные события
+     * @return false если буфер был пуст
+     */
+    private boolean drainAvailable() {
+        boolean drained = false;
+        long position = head;
+        while (true) {
+            int slot = (int) (position & mask);
+            if (sequences.get(slot) != position + 1) {
+                break;
+            }
+            LogEvent event = buffer.get(slot);
+            buffer.set(slot, null);
+            sequences.set(slot, position + mask + 1);
+            position++;
+            head = position;
+            delegate.publish(event);
+            drained = true;
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,324 @@
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Класс Замеры производительности (Benchmarks)
+ *
+ * Воспроизводимые замеры горячих путей обработки заказов:
+ * - Warehouse.completeOrders для очереди из 1k / 100k / 1M заказов
+ *   (и 100k заказов с кучей OrderQueue по политике AGE)
+ * - создание Order из большого массива Product[]
+ * - Order.removeUnavailableProducts
+ * - IdGenerator.generateId в одном и нескольких потоках (оба режима)
+ * - Coordinates.distanceTo
+ * - Warehouse.quote (оценки корзин витрины)
+ *
+ * Каждый замер: прогревочные итерации, затем измеряемые. Подготовка данных
+ * (setUp) в замер не входит. Журнал симуляции на время замеров отключается.
+ *
+ * Запуск: mvn -Pbench verify [-Dbench.filter=часть имени замера]
+ */
+public class Benchmarks {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURE_ITERATIONS = 5;
+
+    // Результаты складываются сюда, чтобы JIT не выбросил вычисления
+    private static volatile long blackhole;
+
+    /**
+     * Один замер
+     */
+    private interface Case {
+        /**
+         * Подготовить данные для итерации (не измеряется)
+         */
+        void setUp();
+
+        /**
+         * Выполнить измеряемую работу
+         * @return количество выполненных операций
+         */
+        long run();
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        SimulationLog.setSink(new NoOpEventSink());
+
+        Map<String, Case> cases = new LinkedHashMap<>();
+        cases.put("completeOrders.1k", completeOrders(1_000));
+        cases.put("completeOrders.100k", completeOrders(100_000));
+        cases.put("completeOrders.1M", completeOrders(1_000_000));
+        cases.put("completeOrders.100k.age", completeOrders(100_000, QueuePolicy.AGE));
+        cases.put("orderFromLargeArray", orderFromLargeArray());
+        cases.put("removeUnavailableProducts", removeUnavailableProducts());
+        cases.put("generateId.readable.1thread", generateId(IdGenerator.Mode.READABLE, 1));
+        cases.put("generateId.readable.4threads", generateId(IdGenerator.Mode.READABLE, 4));
+        cases.put("generateId.compact.1thread", generateId(IdGenerator.Mode.COMPACT, 1));
+        cases.put("generateId.compact.4threads", generateId(IdGenerator.Mode.COMPACT, 4));
+        cases.put("distanceTo", distanceTo());
+        cases.put("quote", quote());
+
+        System.out.printf("%-32s %16s %12s%n", "Замер", "оп/с", "± %");
+        for (Map.Entry<String, Case> entry : cases.entrySet()) {
+            if (entry.getKey().contains(filter)) {
+                measure(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static void measure(String name, Case benchmark) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            benchmark.setUp();
+            benchmark.run();
+        }
+        double[] throughput = new double[MEASURE_ITERATIONS];
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            benchmark.setUp();
+            long start = System.nanoTime();
+            long ops = benchmark.run();
+            long elapsed = System.nanoTime() - start;
+            throughput[i] = ops * 1e9 / elapsed;
+        }
+        double mean = Arrays.stream(throughput).average().orElse(0);
+        double variance = Arrays.stream(throughput).map(t -> (t - mean) * (t - mean)).sum() / MEASURE_ITERATIONS;
+        System.out.printf("%-32s %16.0f %11.1f%%%n", name, mean, 100 * Math.sqrt(variance) / mean);
+    }
+
+    /**
+     * Один проход completeOrders по очереди из ordersCount заказов по 3 товара,
+     * товара на складе хватает на все заказы, работники на смене круглые сутки
+     */
+    private static Case completeOrders(int ordersCount) {
+        return completeOrders(ordersCount, QueuePolicy.FIFO);
+    }
+
+    private static Case completeOrders(int ordersCount, QueuePolicy policy) {
+        Product[] catalog = products(3);
+        return new Case() {
+            private Warehouse storage;
+
+            @Override
+            public void setUp() {
+                SimulationTime.setTime(LocalTime.of(8, 0));
+                Map<Product, Integer> stock = new HashMap<>();
+                for (Product p : catalog) {
+                    stock.put(p, ordersCount);
+                }
+                storage = new Warehouse(stock, new Coordinates(50, 50));
+                storage.setQueuePolicy(policy);
+                storage.addStorekeeper(new Warehouseman(LocalTime.MIN, LocalTime.MAX));
+                storage.addCourier(new Courier(LocalTime.MIN, LocalTime.MAX));
+                Coordinates user = new Coordinates(53, 54);
+                for (int i = 0; i < ordersCount; i++) {
+                    storage.addOrder(new Order(catalog, user, storage));
+                }
+            }
+
+            @Override
+            public long run() {
+                storage.completeOrders();
+                blackhole += storage.getDeliveredCount();
+                return ordersCount;
+            }
+        };
+    }
+
+    /**
+     * Создание заказа из массива в 10 000 позиций по 100 различным товарам
+     */
+    private static Case orderFromLargeArray() {
+        Product[] catalog = products(100);
+        Product[] items = new Product[10_000];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = catalog[i % catalog.length];
+        }
+        Warehouse storage = new Warehouse(new HashMap<>(), new Coordinates(0, 0));
+        Coordinates user = new Coordinates(10, 10);
+        return new Case() {
+            @Override
+            public void setUp() {
+            }
+
+            @Override
+            public long run() {
+                for (int i = 0; i < 100; i++) {
+                    blackhole += new Order(items, user, storage).getProducts().size();
+                }
+                return 100;
+            }
+        };
+    }
+
+    /**
+     * Удаление отсутствующих товаров из 10 000 заказов по 20 строк;
+     * половины товаров нет, остальных хватает частично
+     */
+    private static Case removeUnavailableProducts() {
+        Product[] catalog = products(20);
+        Product[] items = new Product[60];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = catalog[i % catalog.length];
+        }
+        Map<Product, Integer> stock = new HashMap<>();
+        for (int i = 0; i < catalog.length; i += 2) {
+            stock.put(catalog[i], 2);
+        }
+        Warehouse storage = new Warehouse(stock, new Coordinates(0, 0));
+        Coordinates user = new Coordinates(10, 10);
+        return new Case() {
+            private final List<Order> orders = new ArrayList<>();
+
+            @Override
+            public void setUp() {
+                orders.clear();
+                for (int i = 0; i < 10_000; i++) {
+                    orders.add(new Order(items, user, storage));
+                }
+            }
+
+            @Override
+            public long run() {
+                for (Order order : orders) {
+                    if (order.removeUnavailableProducts(storage)) {
+                        blackhole++;
+                    }
+                }
+                return orders.size();
+            }
+        };
+    }
+
+    /**
+     * Генерация 200 000 идентификаторов на поток
+     */
+    private static Case generateId(IdGenerator.Mode mode, int threads) {
+        int perThread = 200_000;
+        return new Case() {
+            @Override
+            public void setUp() {
+            }
+
+            @Override
+            public long run() {
+                IdGenerator.Mode previous = IdGenerator.getMode();
+                IdGenerator.setMode(mode);
+                try {
+                    runInThreads(threads, () -> {
+                        long sum = 0;
+                        for (int i = 0; i < perThread; i++) {
+                            sum += IdGenerator.generateId(IdGenerator.ObjectType.ORDER).length();
+                        }
+                        blackhole += sum;
+                    });
+                } finally {
+                    IdGenerator.setMode(previous);
+                }
+                return (long) perThread * threads;
+            }
+        };
+    }
+
+    /**
+     * Расстояния от склада до 1 000 000 точек
+     */
+    private static Case distanceTo() {
+        Coordinates storage = new Coordinates(50, 50);
+        Coordinates[] points = new Coordinates[1_000_000];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Coordinates(1 + i % 100, 1 + (i / 100) % 100);
+        }
+        return new Case() {
+            @Override
+            public void setUp() {
+            }
+
+            @Override
+            public long run() {
+                double sum = 0;
+                for (Coordinates point : points) {
+                    sum += storage.distanceTo(point);
+                }
+                blackhole += (long) sum;
+                return points.length;
+            }
+        };
+    }
+
+    /**
+     * 1 000 000 оценок: 16 различных корзин по 3 товара, 1 000 точек пользователей,
+     * склад не меняется
+     */
+    private static Case quote() {
+        Product[] catalog = products(8);
+        Map<Product, Integer> stock = new HashMap<>();
+        for (Product p : catalog) {
+            stock.put(p, 1_000);
+        }
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        OrderLines[] baskets = new OrderLines[16];
+        for (int i = 0; i < baskets.length; i++) {
+            baskets[i] = OrderLines.of(new Product[] {catalog[i % 8], catalog[(i + 1) % 8], catalog[i / 2]});
+        }
+        Coordinates[] users = new Coordinates[1_000];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = new Coordinates(1 + i % 100, 1 + (i * 7) % 100);
+        }
+        return new Case() {
+            @Override
+            public void setUp() {
+                SimulationTime.setTime(LocalTime.of(8, 0));
+            }
+
+            @Override
+            public long run() {
+                long sum = 0;
+                for (int i = 0; i < 1_000_000; i++) {
+                    sum += storage.quote(baskets[i & 15], users[i % users.length]).getSeconds();
+                }
+                blackhole += sum;
+                return 1_000_000;
+            }
+        };
+    }
+
+    private static Product[] products(int count) {
+        Product[] result = new Product[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = new Product("Товар " + i, 10 + i);
+        }
+        return result;
+    }
+
+    private static void runInThreads(int threads, Runnable task) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
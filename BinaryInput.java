@@ -0,0 +1,130 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Класс Двоичное чтение (BinaryInput)
+ *
+ * Буферизованное чтение данных, записанных BinaryOutput, из FileChannel.
+ * Буфер дочитывается из канала по мере необходимости, поэтому размер файла
+ * не ограничен размером буфера.
+ */
+public class BinaryInput implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Открыть файл на чтение
+     * @param file путь к файлу
+     * @throws IOException если файл не открывается
+     */
+    public BinaryInput(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.limit(0);
+    }
+
+    public byte readByte() throws IOException {
+        require(Byte.BYTES);
+        return buffer.get();
+    }
+
+    public int readInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        require(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    public float readFloat() throws IOException {
+        require(Float.BYTES);
+        return buffer.getFloat();
+    }
+
+    public double readDouble() throws IOException {
+        require(Double.BYTES);
+        return buffer.getDouble();
+    }
+
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            throw new IOException("Повреждена длина строки: " + length);
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            require(1);
+            int chunk = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, chunk);
+            offset += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Прочитать строку из поля фиксированной ширины (см. BinaryOutput.writeFixedString)
+     * @param width ширина поля в байтах
+     * @return строка без дополняющих нулей
+     */
+    public String readFixedString(int width) throws IOException {
+        require(width);
+        byte[] bytes = new byte[width];
+        buffer.get(bytes);
+        int length = 0;
+        while (length < width && bytes[length] != 0) {
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Проверить, остались ли непрочитанные данные
+     * @return true если файл прочитан до конца
+     * @throws IOException при ошибке чтения
+     */
+    public boolean isAtEnd() throws IOException {
+        return !fill(1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void require(int bytes) throws IOException {
+        if (!fill(bytes)) {
+            throw new EOFException("Неожиданный конец файла");
+        }
+    }
+
+    /**
+     * Дочитать из канала, пока в буфере не окажется хотя бы bytes байт
+     * @return false если канал закончился раньше
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        try {
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    return false;
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Класс Двоичная запись (BinaryOutput)
+ *
+ * Буферизованная запись примитивов и строк в FileChannel.
+ * Значения копятся в прямом буфере и уходят в канал одной записью,
+ * когда буфер заполнен, при flush() и при закрытии.
+ * Строки записываются как длина в байтах + UTF-8.
+ */
+public class BinaryOutput implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Открыть файл на запись (существующий файл перезаписывается)
+     * @param file путь к файлу
+     * @throws IOException если файл не открывается
+     */
+    public BinaryOutput(Path file) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Писать в уже открытый канал с его текущей позиции
+     * @param channel канал (закрывается вместе с BinaryOutput)
+     */
+    public BinaryOutput(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public void writeByte(int value) throws IOException {
+        ensure(Byte.BYTES);
+        buffer.put((byte) value);
+    }
+
+    public void writeInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    public void writeLong(long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    public void writeFloat(float value) throws IOException {
+        ensure(Float.BYTES);
+        buffer.putFloat(value);
+    }
+
+    public void writeDouble(double value) throws IOException {
+        ensure(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    public void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    /**
+     * Записать строку в поле фиксированной ширины (для записей одинаковой длины)
+     * UTF-8 байты дополняются нулями; более длинная строка обрезается до width байт
+     * @param value строка или null (пустое поле)
+     * @param width ширина поля в байтах
+     */
+    public void writeFixedString(String value, int width) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, width);
+        ensure(width);
+        buffer.put(bytes, 0, length);
+        for (int i = length; i < width; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    /**
+     * Передать накопленные данные в канал
+     * @throws IOException при ошибке записи
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Передать накопленные данные в канал и сбросить их на диск
+     * @param metadata сбрасывать ли также метаданные файла
+     * @throws IOException при ошибке записи
+     */
+    public void sync(boolean metadata) throws IOException {
+        flush();
+        channel.force(metadata);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * Класс Вывод событий в консоль (ConsoleEventSink)
+ *
+ * Печатает текст каждого события в System.out. Используется по умолчанию.
+ */
+public class ConsoleEventSink implements EventSink {
+    @Override
+    public void publish(LogEvent event) {
+        System.out.println(event.format());
+    }
+}
@@ -25,6 +25,8 @@ public class Coordinates {
     }
 
     public double distanceTo(Coordinates other) {
-        return Math.sqrt(Math.pow(x - other.x, 2) + Math.pow(y - other.y, 2));
+        long dx = x - other.x;
+        long dy = y - other.y;
+        return Math.sqrt(dx * dx + dy * dy);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
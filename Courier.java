@@ -1,4 +1,6 @@
 import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Класс Курьер (Courier)
@@ -7,6 +9,9 @@ import java.time.LocalTime;
  * Наследуется от абстрактного класса Worker.
  */
 public class Courier extends Worker {
+    private List<Order> route = Collections.emptyList(); // Заказы текущей поездки в порядке объезда
+    private double distanceTravelled;                    // Пройденное расстояние за все поездки
+
     /**
      * Конструктор курьера
      * @param startShift время начала смены
@@ -16,16 +21,46 @@ public class Courier extends Worker {
         super(startShift, endShift);
     }
 
+    Courier(String id, LocalTime startShift, LocalTime endShift) {
+        super(id, startShift, endShift);
+    }
+
+    // Геттеры
+    public double getDistanceTravelled() {
+        return distanceTravelled;
+    }
+
+    void restoreDistanceTravelled(double distanceTravelled) {
+        this.distanceTravelled = distanceTravelled;
+    }
+
+    /**
+     * Назначить курьеру поездку с несколькими заказами
+     * @param route маршрут объезда пользователей
+     */
+    public void setRoute(DeliveryRoute route) {
+        this.route = route.getStops();
+        this.currentOrder = this.route.get(0);
+    }
+
     /**
      * Выполнение работы по доставке заказа
      *
      * Логика работы:
      * 1. Проверяет наличие активного заказа и работает ли курьер в текущее время
+     *    и закрепляет за собой заказы поездки (assignCourier)
      * 2. Рассчитывает расстояние между складом и пользователем
      * 3. Вычисляет время доставки: (расстояние * 30 сек) + 120 сек (фиксированное время на операции)
      * 4. Обновляет статус заказа на "Доставлен"
-     * 5. Выводит информацию о доставке
+     * 5. Сообщает о доставке в журнал симуляции
      * 6. Освобождает курьера и обновляет его статус
+     *
+     * Если курьеру назначен маршрут из нескольких заказов, выход со склада (60 сек)
+     * считается один раз, а к каждой точке добавляются дорога (расстояние * 30 сек)
+     * и выдача заказа (60 сек). Для одного заказа время совпадает с формулой выше.
+     *
+     * Если склад подключен к планировщику событий, доставка и возвращение
+     * планируются как события, а курьер остается занят до возвращения.
      */
     @Override
     public void completeWork() {
@@ -33,26 +68,70 @@ public class Courier extends Worker {
             return;
         }
 
-        double distance = calculateDistance(
-                currentOrder.getStorageCoordinates(),
-                currentOrder.getUserCoordinates()
-        );
+        startWork();
+        List<Order> stops = route.isEmpty() ? Collections.singletonList(currentOrder) : route;
+        double tripDistance = 0;
+        Warehouse storage = currentOrder.getStorage();
+        EventScheduler scheduler = storage.getScheduler();
+        Coordinates position = currentOrder.getStorageCoordinates();
+        int elapsedSeconds = 60;  // Выход со склада
+        if (scheduler == null) {
+            SimulationTime.addSeconds(elapsedSeconds);
+        }
 
-        int deliverySeconds = (int) (distance * 30 + 120);
-        SimulationTime.addSeconds(deliverySeconds);
-        LocalTime deliveryTime = SimulationTime.getCurrentTime();
+        for (Order order : stops) {
+            order.assignCourier(id);
+            double distance = calculateDistance(position, order.getUserCoordinates());
+            tripDistance += distance;
+            int legSeconds = (int) (distance * 30) + 60;
+            elapsedSeconds += legSeconds;
+            if (scheduler == null) {
+                SimulationTime.addSeconds(legSeconds);
+                deliver(order);
+            } else {
+                scheduler.scheduleAfter(elapsedSeconds, () -> deliver(order));
+            }
+            position = order.getUserCoordinates();
+        }
 
-        currentOrder.updateStatus(Order.OrderStatus.DELIVERED);
-        System.out.println("Курьер " + id + " доставил заказ " +
-                currentOrder.getOrderId() + " в " + deliveryTime);
+        double returnDistance = calculateDistance(position, currentOrder.getStorageCoordinates());
+        int returnSeconds = (int) (returnDistance * 30);
+        elapsedSeconds += returnSeconds;
+        double distance = tripDistance + returnDistance;
+        int tripSeconds = elapsedSeconds;
+        int delivered = stops.size();
+        route = Collections.emptyList();
+        if (scheduler == null) {
+            SimulationTime.addSeconds(returnSeconds);
+            returnToStorage(storage, tripSeconds, delivered, distance);
+        } else {
+            scheduler.scheduleAfter(elapsedSeconds, () -> returnToStorage(storage, tripSeconds, delivered, distance));
+        }
+    }
 
-        int returnSeconds = (int) (distance * 30);
-        SimulationTime.addSeconds(returnSeconds);
-        LocalTime returnTime = SimulationTime.getCurrentTime();
-        System.out.println("Курьер " + id + " вернулся на склад в " + returnTime);
+    /**
+     * Вручить заказ пользователю
+     * @param order доставляемый заказ
+     */
+    private void deliver(Order order) {
+        order.updateStatus(Order.OrderStatus.DELIVERED);
+        order.getStorage().orderDelivered(order);
+        SimulationLog.worker(LogEvent.Type.ORDER_DELIVERED, id, order);
+    }
 
+    /**
+     * Вернуться на склад, учесть поездку и освободиться для следующего заказа
+     * @param storage склад, на который возвращается курьер
+     * @param tripSeconds длительность поездки
+     * @param delivered доставлено заказов за поездку
+     * @param distance пройденное за поездку расстояние
+     */
+    private void returnToStorage(Warehouse storage, int tripSeconds, int delivered, double distance) {
+        SimulationLog.worker(LogEvent.Type.COURIER_RETURNED, id, null);
         currentOrder = null;
-        setStatus(Status.NOT_WORKING);
+        distanceTravelled += distance;
+        finishWork(tripSeconds, delivered);
+        storage.courierReturned(this);
     }
 
     /**
@@ -64,4 +143,4 @@ public class Courier extends Worker {
     private double calculateDistance(Coordinates storage, Coordinates user) {
         return storage.distanceTo(user);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
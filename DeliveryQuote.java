@@ -0,0 +1,50 @@
+import java.time.LocalTime;
+
+/**
+ * Класс Предварительная оценка заказа (DeliveryQuote)
+ *
+ * Ответ склада на вопрос витрины "можно ли собрать эту корзину и когда
+ * ее привезут" (Warehouse.quote). Заказ при этом не создается и товар
+ * не резервируется, поэтому оценка верна на момент запроса.
+ *
+ * Время доставки считается по тем же формулам, что у работников,
+ * для свободных кладовщика и курьера: сборка 45 сек на единицу товара,
+ * выход со склада 1 мин, дорога 30 сек на у.е., выдача 1 мин.
+ */
+public class DeliveryQuote {
+    private final boolean feasible;    // Хватает ли свободного остатка на всю корзину
+    private final double distance;     // Расстояние от склада до пользователя
+    private final int seconds;         // Сборка + доставка, сек
+    private final LocalTime eta;       // Ожидаемое время вручения (null, если товара не хватает)
+
+    DeliveryQuote(boolean feasible, double distance, int seconds, LocalTime eta) {
+        this.feasible = feasible;
+        this.distance = distance;
+        this.seconds = seconds;
+        this.eta = eta;
+    }
+
+    // Геттеры
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+    public LocalTime getEta() {
+        return eta;
+    }
+
+    @Override
+    public String toString() {
+        return feasible
+                ? "можно собрать, доставка к " + eta + " (" + seconds + " сек)"
+                : "товара не хватает";
+    }
+}
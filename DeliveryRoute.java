@@ -0,0 +1,99 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Класс Маршрут доставки (DeliveryRoute)
+ *
+ * Порядок объезда пользователей курьером, который берет несколько заказов
+ * за одну поездку. Маршрут строится эвристикой ближайшего соседа
+ * и улучшается перестановками 2-opt; курьер выезжает со склада и возвращается на него.
+ */
+public class DeliveryRoute {
+    private static final int MAX_IMPROVEMENT_PASSES = 50;
+
+    private final Coordinates depot;     // Координаты склада
+    private final List<Order> stops;     // Заказы в порядке объезда
+
+    private DeliveryRoute(Coordinates depot, List<Order> stops) {
+        this.depot = depot;
+        this.stops = stops;
+    }
+
+    /**
+     * Построить маршрут объезда
+     * @param depot координаты склада
+     * @param orders заказы для доставки
+     * @return маршрут
+     */
+    public static DeliveryRoute plan(Coordinates depot, List<Order> orders) {
+        List<Order> route = nearestNeighbour(depot, orders);
+        improve(depot, route);
+        return new DeliveryRoute(depot, route);
+    }
+
+    // Геттеры
+    public List<Order> getStops() {
+        return Collections.unmodifiableList(stops);
+    }
+
+    /**
+     * Получить длину маршрута от склада через всех пользователей обратно на склад
+     * @return длина в условных единицах
+     */
+    public double getLength() {
+        double length = 0;
+        Coordinates previous = depot;
+        for (Order order : stops) {
+            length += previous.distanceTo(order.getUserCoordinates());
+            previous = order.getUserCoordinates();
+        }
+        return length + previous.distanceTo(depot);
+    }
+
+    private static List<Order> nearestNeighbour(Coordinates depot, List<Order> orders) {
+        List<Order> remaining = new ArrayList<>(orders);
+        List<Order> route = new ArrayList<>(orders.size());
+        Coordinates current = depot;
+        while (!remaining.isEmpty()) {
+            int best = 0;
+            double bestDistance = Double.MAX_VALUE;
+            for (int i = 0; i < remaining.size(); i++) {
+                double distance = current.distanceTo(remaining.get(i).getUserCoordinates());
+                if (distance < bestDistance) {
+                    best = i;
+                    bestDistance = distance;
+                }
+            }
+            Order next = remaining.remove(best);
+            route.add(next);
+            current = next.getUserCoordinates();
+        }
+        return route;
+    }
+
+    /**
+     * Улучшение 2-opt: разворачивает участок маршрута, если это сокращает путь
+     */
+    private static void improve(Coordinates depot, List<Order> route) {
+        int n = route.size();
+        boolean improved = true;
+        for (int pass = 0; improved && pass < MAX_IMPROVEMENT_PASSES; pass++) {
+            improved = false;
+            for (int i = 0; i < n - 1; i++) {
+                Coordinates a = i == 0 ? depot : route.get(i - 1).getUserCoordinates();
+                Coordinates b = route.get(i).getUserCoordinates();
+                for (int j = i + 1; j < n; j++) {
+                    Coordinates c = route.get(j).getUserCoordinates();
+                    Coordinates d = j == n - 1 ? depot : route.get(j + 1).getUserCoordinates();
+                    double delta = a.distanceTo(c) + b.distanceTo(d) - a.distanceTo(b) - c.distanceTo(d);
+                    if (delta < -1e-9) {
+                        Collections.reverse(route.subList(i, j + 1));
+                        b = route.get(i).getUserCoordinates();
+                        improved = true;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import java.time.LocalTime;
+import java.util.PriorityQueue;
+
+/**
+ * Класс Планировщик событий (EventScheduler)
+ *
+ * Дискретно-событийный движок симуляции. Хранит очередь событий
+ * (момент времени + действие), упорядоченную по времени, и выполняет их по одному,
+ * переводя SimulationTime на момент каждого события.
+ *
+ * В отличие от пошагового сдвига часов через SimulationTime.addSeconds,
+ * сборка, доставка и возвращение курьеров планируются как отдельные события,
+ * поэтому работники могут выполнять заказы параллельно в симулированном времени.
+ *
+ * Время событий хранится в секундах от начала суток и не переполняется в полночь.
+ */
+public class EventScheduler {
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final PriorityQueue<ScheduledEvent> events = new PriorityQueue<>();
+    private long now;       // Текущее время планировщика (секунды от начала суток)
+    private long sequence;  // Порядковый номер для событий с одинаковым временем
+
+    /**
+     * Конструктор планировщика
+     * Начальное время берется из текущего времени симуляции
+     */
+    public EventScheduler() {
+        LocalTime currentTime = SimulationTime.getCurrentTime();
+        this.now = currentTime == null ? 0 : currentTime.toSecondOfDay();
+    }
+
+    /**
+     * Запланировать событие на указанное время
+     * Событие в прошлом выполняется в текущий момент планировщика
+     * @param time время события
+     * @param action действие
+     */
+    public void schedule(LocalTime time, Runnable action) {
+        scheduleAt(Math.max(now, time.toSecondOfDay()), action);
+    }
+
+    /**
+     * Запланировать событие через заданное количество секунд от текущего момента
+     * @param seconds задержка в секундах
+     * @param action действие
+     */
+    public void scheduleAfter(long seconds, Runnable action) {
+        scheduleAt(now + seconds, action);
+    }
+
+    private void scheduleAt(long time, Runnable action) {
+        events.add(new ScheduledEvent(time, sequence++, action));
+    }
+
+    /**
+     * Выполнить ближайшее событие
+     * @return false если очередь событий пуста
+     */
+    public boolean step() {
+        ScheduledEvent event = events.poll();
+        if (event == null) {
+            return false;
+        }
+        advanceTo(event.time);
+        event.action.run();
+        return true;
+    }
+
+    /**
+     * Выполнять события, пока они не закончатся
+     */
+    public void run() {
+        while (step()) {
+            // события выполняются в step()
+        }
+    }
+
+    /**
+     * Выполнить все события не позже указанного времени
+     * После выполнения часы симуляции переводятся на endTime
+     * @param endTime время окончания прогона
+     */
+    public void runUntil(LocalTime endTime) {
+        long end = endTime.toSecondOfDay();
+        while (!events.isEmpty() && events.peek().time <= end) {
+            step();
+        }
+        advanceTo(Math.max(now, end));
+    }
+
+    /**
+     * Получить количество ожидающих событий
+     * @return размер очереди событий
+     */
+    public int pendingEvents() {
+        return events.size();
+    }
+
+    private void advanceTo(long time) {
+        now = time;
+        SimulationTime.setTime(LocalTime.ofSecondOfDay(time % SECONDS_PER_DAY));
+    }
+
+    /**
+     * Событие: момент времени + действие
+     */
+    private static final class ScheduledEvent implements Comparable<ScheduledEvent> {
+        private final long time;
+        private final long sequence;
+        private final Runnable action;
+
+        private ScheduledEvent(long time, long sequence, Runnable action) {
+            this.time = time;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(ScheduledEvent other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * Интерфейс Получатель событий (EventSink)
+ *
+ * Принимает события журнала симуляции. Реализации: вывод в консоль
+ * (ConsoleEventSink), асинхронная запись через кольцевой буфер (AsyncEventSink)
+ * и отключенный журнал для замеров производительности (NoOpEventSink).
+ */
+public interface EventSink {
+    /**
+     * Принять событие
+     * @param event событие журнала
+     */
+    void publish(LogEvent event);
+
+    /**
+     * Нужны ли получателю события
+     * Если false, события не создаются вовсе
+     * @return true если события записываются
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Дописать накопленные события и освободить ресурсы
+     */
+    default void close() {
+    }
+}
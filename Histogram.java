@@ -0,0 +1,124 @@
+import java.util.Arrays;
+
+/**
+ * Класс Гистограмма (Histogram)
+ *
+ * Гистограмма неотрицательных целых значений с логарифмическими корзинами
+ * в духе HdrHistogram: значения до 64 хранятся точно, дальше каждая степень
+ * двойки делится на 32 корзины, поэтому относительная погрешность
+ * перцентилей не превышает ~3%. Запись - инкремент счетчика в массиве,
+ * без выделения памяти (массив растет только до корзины наибольшего значения).
+ *
+ * Не потокобезопасна: запись и чтение должны идти под одной блокировкой.
+ * WarehouseMetrics пишет в гистограммы склада под своей блокировкой (в режиме
+ * StagedRuntime это делают несколько потоков) и наружу отдает только копии.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;  // Точные значения 0..63
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;  // Корзин на степень двойки
+
+    private long[] counts = new long[SUB_BUCKET_COUNT];
+    private long totalCount;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Записать значение (отрицательные значения считаются нулем)
+     * @param value значение
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int index = indexOf(value);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        totalCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Получить значение перцентиля
+     * @param percentile перцентиль от 0 до 100
+     * @return наибольшее значение корзины, в которую попадает перцентиль (0 если значений нет)
+     */
+    public long getPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                return Math.min(lowestValueAt(index + 1) - 1, max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Создать независимую копию гистограммы
+     * @return копия с теми же значениями
+     */
+    public Histogram copy() {
+        Histogram copy = new Histogram();
+        copy.add(this);
+        return copy;
+    }
+
+    /**
+     * Добавить значения другой гистограммы
+     * @param other гистограмма
+     */
+    public void add(Histogram other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int index = 0; index < other.counts.length; index++) {
+            counts[index] += other.counts[index];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    private static long lowestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        return (long) (index - shift * SUB_BUCKET_HALF) << shift;
+    }
+}
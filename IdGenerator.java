@@ -1,13 +1,59 @@
 import java.time.Instant;
+import java.time.LocalTime;
 import java.util.Base64;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+/**
+ * Класс Генератор идентификаторов (IdGenerator)
+ *
+ * Выдает идентификаторы заказов, пользователей, работников, складов и поставщиков.
+ *
+ * По умолчанию случайная часть берется из незасеянного генератора, а метка времени
+ * READABLE-идентификатора - из системных часов, поэтому идентификаторы разных
+ * запусков различаются. После setSeed (см. SimulationContext) счетчики сбрасываются,
+ * случайная часть берется из генератора с заданным зерном, а метка времени -
+ * из времени симуляции: одинаковая последовательность вызовов в одном потоке
+ * дает одинаковые идентификаторы.
+ *
+ * Зерно setSeed общее для всех потоков, поэтому при параллельной работе
+ * идентификаторы зависят от порядка потоков. Поток, которому нужна
+ * воспроизводимость независимо от других (SimulationRunner), получает
+ * собственное зерно через withOwnSeed.
+ */
 public class IdGenerator {
     private static final AtomicInteger counter = new AtomicInteger(0);
-    private static final Random random = new Random();
+    private static volatile Random random = new Random();
+    private static volatile boolean seeded;                        // Режим воспроизводимых идентификаторов
+    private static volatile int generation;                         // Растет при каждом setSeed
     private static final String CHAR_POOL = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789"; // Исключены 0,O,1,I
 
+    // Компактные идентификаторы: [3 бита тип][21 бит случайные][40 бит счетчик]
+    private static final int TYPE_SHIFT = 61;
+    private static final int RANDOM_SHIFT = 40;
+    private static final long RANDOM_MASK = (1L << 21) - 1;
+    private static final long SEQUENCE_MASK = (1L << RANDOM_SHIFT) - 1;
+    private static final int SEQUENCE_BLOCK = 1024;  // Номеров, выдаваемых потоку за раз
+    private static final int COMPACT_CHARS = 13;     // 61 бит по 5 бит на символ
+    private static final ObjectType[] TYPES = ObjectType.values();
+
+    private static final AtomicLong sequence = new AtomicLong(0);
+    // Блок номеров и собственное зерно потока
+    private static final ThreadLocal<ThreadIds> threadIds = ThreadLocal.withInitial(ThreadIds::new);
+    private static volatile Mode mode = Mode.READABLE;
+
+    /**
+     * Режимы генерации:
+     * READABLE - строка с меткой времени, случайной частью и счетчиком
+     * COMPACT - упакованное 64-битное число, строка строится только по запросу
+     */
+    public enum Mode {
+        READABLE, COMPACT
+    }
+
     // Типы объектов
     public enum ObjectType {
         ORDER("OR"),
@@ -27,29 +73,117 @@ public class IdGenerator {
         }
     }
 
+    public static void setMode(Mode newMode) {
+        mode = newMode;
+    }
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Перейти к воспроизводимым идентификаторам
+     * Счетчики начинаются заново, уже выданные блоки номеров потоков отбрасываются
+     * @param seed зерно случайной части
+     */
+    public static synchronized void setSeed(long seed) {
+        random = new Random(seed);
+        counter.set(0);
+        sequence.set(0);
+        generation++;
+        seeded = true;
+    }
+
+    /**
+     * Вернуться к незасеянной случайной части и системным часам (счетчики продолжаются)
+     */
+    public static synchronized void clearSeed() {
+        random = new Random();
+        seeded = false;
+    }
+
+    public static boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Получить зерно для производных последовательностей из общего засеянного генератора
+     * (вызывается в одном потоке до запуска параллельных задач)
+     */
+    static synchronized long forkSeed() {
+        return random.nextLong();
+    }
+
+    /**
+     * Выполнить задачу с собственным зерном идентификаторов текущего потока
+     *
+     * Пока задача выполняется, идентификаторы потока зависят только от seed,
+     * firstNumber и последовательности вызовов в этом потоке: случайная часть
+     * берется из генератора потока, номера идут подряд от firstNumber, метка
+     * времени READABLE - из часов симуляции потока. Разные firstNumber разводят
+     * номера потоков, чтобы их идентификаторы не совпадали.
+     * После завершения задачи поток возвращается к прежнему режиму.
+     *
+     * @param seed зерно случайной части
+     * @param firstNumber первый номер (счетчик READABLE, последовательность COMPACT)
+     * @param task задача
+     * @return результат задачи
+     */
+    public static <T> T withOwnSeed(long seed, long firstNumber, Supplier<T> task) {
+        ThreadIds ids = threadIds.get();
+        Random previousRandom = ids.ownRandom;
+        long previousNumber = ids.ownNumber;
+        ids.ownRandom = new Random(seed);
+        ids.ownNumber = firstNumber;
+        try {
+            return task.get();
+        } finally {
+            ids.ownRandom = previousRandom;
+            ids.ownNumber = previousNumber;
+        }
+    }
+
+    /**
+     * Сгенерировать строковый идентификатор в текущем режиме
+     * @param type тип объекта
+     * @return идентификатор с префиксом типа
+     */
     public static String generateId(ObjectType type) {
+        if (mode == Mode.COMPACT) {
+            return format(nextId(type));
+        }
+
+        ThreadIds ids = threadIds.get();
+        Random own = ids.ownRandom;
+
         // Часть 1: Префикс типа объекта (2 символа)
         String prefix = type.getPrefix();
 
         // Часть 2: Текущая временная метка в base64 (6 символов)
         String timestamp = Base64.getUrlEncoder().withoutPadding()
-                .encodeToString(longToBytes(Instant.now().toEpochMilli()))
+                .encodeToString(longToBytes(seeded || own != null ? simulatedMillis() : Instant.now().toEpochMilli()))
                 .substring(0, 6);
 
         // Часть 3: Случайные символы (5 символов)
+        Random source = own != null ? own : random;
         StringBuilder randomPart = new StringBuilder();
         for (int i = 0; i < 5; i++) {
-            randomPart.append(CHAR_POOL.charAt(random.nextInt(CHAR_POOL.length())));
+            randomPart.append(CHAR_POOL.charAt(source.nextInt(CHAR_POOL.length())));
         }
 
         // Часть 4: Инкрементный счетчик (3 символа в base36)
-        String counterPart = Long.toString(counter.getAndIncrement(), 36)
+        String counterPart = Long.toString(own != null ? ids.ownNumber++ : counter.getAndIncrement(), 36)
                 .toUpperCase();
         counterPart = String.format("%3s", counterPart).replace(' ', '0');
 
         return prefix + "-" + timestamp + "-" + randomPart + "-" + counterPart;
     }
 
+    private static long simulatedMillis() {
+        LocalTime time = SimulationTime.getCurrentTime();
+        return time == null ? 0 : time.toNanoOfDay() / 1_000_000;
+    }
+
     private static byte[] longToBytes(long value) {
         byte[] result = new byte[8];
         for (int i = 7; i >= 0; i--) {
@@ -58,4 +192,63 @@ public class IdGenerator {
         }
         return result;
     }
+
+    /**
+     * Сгенерировать компактный идентификатор
+     *
+     * Номер берется из блока, заранее выделенного текущему потоку,
+     * случайная часть - из ThreadLocalRandom, поэтому потоки не конкурируют
+     * за общий Random и счетчик, а вызов не создает объектов.
+     * После setSeed случайная часть берется из засеянного генератора,
+     * внутри withOwnSeed - номер и случайная часть из состояния потока.
+     *
+     * @param type тип объекта
+     * @return упакованный идентификатор
+     */
+    public static long nextId(ObjectType type) {
+        ThreadIds ids = threadIds.get();
+        long seq;
+        long randomBits;
+        if (ids.ownRandom != null) {
+            seq = ids.ownNumber++;
+            randomBits = ids.ownRandom.nextInt() & RANDOM_MASK;
+        } else {
+            if (ids.next == ids.end || ids.generation != generation) {
+                ids.next = sequence.getAndAdd(SEQUENCE_BLOCK);
+                ids.end = ids.next + SEQUENCE_BLOCK;
+                ids.generation = generation;
+            }
+            seq = ids.next++;
+            randomBits = (seeded ? random.nextInt() : ThreadLocalRandom.current().nextInt()) & RANDOM_MASK;
+        }
+        return ((long) type.ordinal() << TYPE_SHIFT) | (randomBits << RANDOM_SHIFT) | (seq & SEQUENCE_MASK);
+    }
+
+    /**
+     * Получить строковую форму компактного идентификатора
+     * @param id упакованный идентификатор
+     * @return префикс типа и 13 символов из CHAR_POOL, например OR-AAAAB3KQ7AAAC
+     */
+    public static String format(long id) {
+        String prefix = TYPES[(int) (id >>> TYPE_SHIFT)].getPrefix();
+        char[] chars = new char[prefix.length() + 1 + COMPACT_CHARS];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        chars[prefix.length()] = '-';
+        for (int i = chars.length - 1; i > prefix.length(); i--) {
+            chars[i] = CHAR_POOL.charAt((int) (id & 31));
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Состояние идентификаторов потока
+     */
+    private static final class ThreadIds {
+        long next;             // Следующий номер блока
+        long end;              // Конец блока
+        int generation = -1;   // Поколение setSeed, для которого выделен блок
+        Random ownRandom;      // Собственное зерно (withOwnSeed), null - общее
+        long ownNumber;        // Следующий номер при собственном зерне
+    }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+
+/**
+ * Класс Журнал входных данных прогона (InputLog)
+ *
+ * Записывает поступающие заказы в CSV-формате OrderStreamLoader
+ * (userId,productId,quantity,время,номер заказа) с зерном прогона в первой
+ * строке ("# seed=..."). Зерно и журнал вместе позволяют воспроизвести прогон
+ * (см. SimulationContext.replay).
+ *
+ * Номер заказа (порядковый, с 0) нужен, чтобы два подряд идущих заказа одного
+ * пользователя в один момент (например, generateInto) не склеились в один.
+ *
+ * Время пишется с точностью до наносекунды, чтобы воспроизведенные
+ * заказы поступали в те же моменты.
+ */
+public class InputLog implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String SEED_PREFIX = "# seed=";
+
+    private final BufferedWriter writer;
+    private long ordersRecorded;
+
+    /**
+     * Создать журнал (существующий файл перезаписывается)
+     * @param file путь к файлу
+     * @param seed зерно прогона
+     * @throws IOException если файл не создается
+     */
+    public InputLog(Path file, long seed) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.writer = new BufferedWriter(
+                Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+        writer.write(SEED_PREFIX + seed);
+        writer.newLine();
+        writer.write("user,product,quantity,time,order");
+        writer.newLine();
+    }
+
+    /**
+     * Записать поступивший заказ
+     * @param user пользователь
+     * @param lines строки заказа
+     * @param time время поступления
+     */
+    public synchronized void record(User user, OrderLines lines, LocalTime time) {
+        try {
+            for (int line = 0; line < lines.size(); line++) {
+                writer.write(user.getId());
+                writer.write(',');
+                writer.write(Integer.toString(lines.productId(line)));
+                writer.write(',');
+                writer.write(Integer.toString(lines.quantity(line)));
+                writer.write(',');
+                writer.write(time.toString());
+                writer.write(',');
+                writer.write(Long.toString(ordersRecorded));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ordersRecorded++;
+    }
+
+    public synchronized long getOrdersRecorded() {
+        return ordersRecorded;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Прочитать зерно прогона из журнала
+     * @param file путь к журналу
+     * @return зерно
+     * @throws IOException при ошибке чтения
+     * @throws IllegalArgumentException если первая строка не содержит зерна
+     */
+    public static long readSeed(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(Channels.newReader(
+                FileChannel.open(file, StandardOpenOption.READ), StandardCharsets.UTF_8.newDecoder(), 256))) {
+            String header = reader.readLine();
+            if (header == null || !header.startsWith(SEED_PREFIX)) {
+                throw new IllegalArgumentException("Файл " + file + " не является журналом прогона: нет строки зерна");
+            }
+            return Long.parseLong(header.substring(SEED_PREFIX.length()).trim());
+        }
+    }
+}
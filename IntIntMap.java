@@ -0,0 +1,150 @@
+import java.util.Arrays;
+
+/**
+ * Класс Отображение int → int (IntIntMap)
+ *
+ * Хеш-таблица с открытой адресацией и линейным пробированием для
+ * неотрицательных ключей (идентификаторов товаров). Ключи и значения хранятся
+ * в массивах примитивов, поэтому операции не создают объектов Integer.
+ */
+public class IntIntMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Посетитель пар ключ-значение
+     */
+    public interface Visitor {
+        void accept(int key, int value);
+    }
+
+    public IntIntMap() {
+        this(8);
+    }
+
+    /**
+     * Конструктор
+     * @param expectedSize ожидаемое количество ключей
+     */
+    public IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Получить значение по ключу
+     * @param key ключ (не меньше 0)
+     * @param missing значение, если ключа нет
+     * @return значение или missing
+     */
+    public int get(int key, int missing) {
+        int slot = find(key);
+        return keys[slot] == EMPTY ? missing : values[slot];
+    }
+
+    public boolean containsKey(int key) {
+        return keys[find(key)] != EMPTY;
+    }
+
+    /**
+     * Записать значение по ключу
+     * @param key ключ (не меньше 0)
+     * @param value значение
+     */
+    public void put(int key, int value) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            insert(slot, key, value);
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * Прибавить delta к значению ключа (отсутствующий ключ считается равным 0)
+     * @param key ключ (не меньше 0)
+     * @param delta прибавка
+     * @return новое значение
+     */
+    public int addTo(int key, int delta) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            insert(slot, key, delta);
+            return delta;
+        }
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Обойти все пары ключ-значение
+     * @param visitor посетитель
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int find(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int slot, int key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
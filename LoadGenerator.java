@@ -0,0 +1,308 @@
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Класс Генератор нагрузки (LoadGenerator)
+ *
+ * Воспроизводимо (по зерну seed) создает сценарий для замеров пропускной способности:
+ * - N пользователей, равномерно разбросанных по полю 1..100 × 1..100
+ * - каталог товаров с популярностью по закону Ципфа (товар ранга k
+ *   заказывают с весом 1 / k^s)
+ * - поставщиков с бюджетом maxCount, пропорциональным популярности товара
+ * - поток заказов: пуассоновский процесс с суточным профилем интенсивности
+ *   (минимум в 4:00, пик в 16:00)
+ *
+ * Пользователи и каталог создаются сразу, заказы - по одному в момент
+ * поступления, поэтому поток любой длины не хранится в памяти.
+ *
+ * Пользователи, каталог и поток заказов берут случайные числа из
+ * независимых последовательностей, поэтому изменение интенсивности
+ * не меняет пользователей и каталог. Поступившие заказы можно записывать
+ * в InputLog для последующего воспроизведения (см. SimulationContext).
+ */
+public class LoadGenerator {
+    private static final double SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final double NIGHT_SHARE = 0.2;  // Интенсивность в 4:00 относительно пика
+
+    private final List<User> users;
+    private final Product[] catalog;     // Товары в порядке убывания популярности
+    private final double[] popularity;   // Нарастающая доля заказов товаров 0..k
+    private final SplittableRandom orderRandom;
+    private InputLog inputLog;               // Журнал поступивших заказов (null - не пишется)
+
+    private double peakOrdersPerHour = 600;  // Интенсивность в пик
+    private int maxBasketLines = 5;          // Наибольшее количество различных товаров в заказе
+    private int maxQuantity = 3;             // Наибольшее количество одного товара в строке
+
+    /**
+     * Конструктор генератора
+     * @param seed зерно случайных чисел
+     * @param userCount количество пользователей
+     * @param productCount количество товаров в каталоге
+     * @param zipfExponent показатель s закона Ципфа (0 - равная популярность, обычно около 1)
+     */
+    public LoadGenerator(long seed, int userCount, int productCount, double zipfExponent) {
+        this(seed, userCount, null, productCount, zipfExponent);
+    }
+
+    /**
+     * Конструктор генератора с готовым каталогом
+     * (например, чтобы воспроизвести прогон с теми же товарами)
+     * @param seed зерно случайных чисел
+     * @param userCount количество пользователей
+     * @param catalog товары в порядке убывания популярности
+     * @param zipfExponent показатель s закона Ципфа
+     */
+    public LoadGenerator(long seed, int userCount, Product[] catalog, double zipfExponent) {
+        this(seed, userCount, catalog.clone(), catalog.length, zipfExponent);
+    }
+
+    private LoadGenerator(long seed, int userCount, Product[] catalog, int productCount, double zipfExponent) {
+        if (userCount < 1 || productCount < 1) {
+            throw new IllegalArgumentException("Нужен хотя бы один пользователь и один товар");
+        }
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom userRandom = root.split();
+        SplittableRandom catalogRandom = root.split();
+        this.orderRandom = root.split();
+
+        this.users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            Coordinates coordinates = new Coordinates(1 + userRandom.nextInt(100), 1 + userRandom.nextInt(100));
+            users.add(new User("user" + i + "@example.com", "Пользователь " + i, coordinates));
+        }
+
+        this.catalog = catalog != null ? catalog : new Product[productCount];
+        this.popularity = new double[productCount];
+        double total = 0;
+        for (int k = 0; k < productCount; k++) {
+            if (catalog == null) {
+                this.catalog[k] = new Product("Товар " + k, 50 + catalogRandom.nextInt(1950));
+            }
+            total += 1 / Math.pow(k + 1, zipfExponent);
+            popularity[k] = total;
+        }
+        for (int k = 0; k < productCount; k++) {
+            popularity[k] /= total;
+        }
+    }
+
+    /**
+     * Установить интенсивность потока заказов в пиковый час
+     * @param peakOrdersPerHour заказов в час в 16:00
+     */
+    public void setPeakOrdersPerHour(double peakOrdersPerHour) {
+        if (peakOrdersPerHour <= 0) {
+            throw new IllegalArgumentException("Интенсивность должна быть положительной: " + peakOrdersPerHour);
+        }
+        this.peakOrdersPerHour = peakOrdersPerHour;
+    }
+
+    /**
+     * Установить размер корзины
+     * @param maxBasketLines наибольшее количество различных товаров в заказе
+     * @param maxQuantity наибольшее количество одного товара
+     */
+    public void setBasketSize(int maxBasketLines, int maxQuantity) {
+        if (maxBasketLines < 1 || maxQuantity < 1) {
+            throw new IllegalArgumentException("Корзина должна содержать хотя бы одну единицу товара");
+        }
+        this.maxBasketLines = maxBasketLines;
+        this.maxQuantity = maxQuantity;
+    }
+
+    /**
+     * Записывать поступающие заказы в журнал входных данных
+     * @param inputLog журнал или null
+     */
+    public void setInputLog(InputLog inputLog) {
+        this.inputLog = inputLog;
+    }
+
+    // Геттеры
+    public List<User> getUsers() {
+        return Collections.unmodifiableList(users);
+    }
+
+    public Product[] getCatalog() {
+        return catalog.clone();
+    }
+
+    /**
+     * Доля заказов, приходящаяся на товар
+     * @param rank ранг товара в каталоге (0 - самый популярный)
+     * @return вероятность выбрать товар для строки заказа
+     */
+    public double getPopularity(int rank) {
+        return rank == 0 ? popularity[0] : popularity[rank] - popularity[rank - 1];
+    }
+
+    /**
+     * Начальные остатки склада: всего totalUnits единиц, распределенных по популярности
+     * (каждому товару хотя бы одна единица)
+     * @param totalUnits суммарный остаток
+     * @return товар → количество
+     */
+    public Map<Product, Integer> initialStock(int totalUnits) {
+        Map<Product, Integer> stock = new HashMap<>();
+        for (int k = 0; k < catalog.length; k++) {
+            stock.put(catalog[k], Math.max(1, (int) (totalUnits * getPopularity(k))));
+        }
+        return stock;
+    }
+
+    /**
+     * Создать по поставщику на каждый товар с бюджетом, пропорциональным популярности
+     * @param totalBudget суммарный maxCount всех поставщиков
+     * @return поставщики в порядке каталога
+     */
+    public List<Producer> createProducers(int totalBudget) {
+        List<Producer> producers = new ArrayList<>(catalog.length);
+        for (int k = 0; k < catalog.length; k++) {
+            int budget = Math.max(1, (int) (totalBudget * getPopularity(k)));
+            producers.add(new Producer("Поставщик " + k, catalog[k], budget));
+        }
+        return producers;
+    }
+
+    /**
+     * Выбрать товар по популярности
+     * @return товар каталога
+     */
+    public Product nextProduct() {
+        int rank = Arrays.binarySearch(popularity, orderRandom.nextDouble());
+        rank = rank >= 0 ? rank + 1 : -rank - 1;
+        return catalog[Math.min(rank, catalog.length - 1)];
+    }
+
+    /**
+     * Составить корзину: 1..maxBasketLines строк по 1..maxQuantity единиц
+     * (повторно выбранный товар добавляется к своей строке)
+     * @return строки заказа
+     */
+    public OrderLines nextBasket() {
+        int lines = 1 + orderRandom.nextInt(maxBasketLines);
+        OrderLines basket = new OrderLines(lines);
+        for (int i = 0; i < lines; i++) {
+            basket.add(nextProduct().getId(), 1 + orderRandom.nextInt(maxQuantity));
+        }
+        return basket;
+    }
+
+    /**
+     * Выбрать пользователя, делающего следующий заказ
+     * @return пользователь
+     */
+    public User nextUser() {
+        return users.get(orderRandom.nextInt(users.size()));
+    }
+
+    /**
+     * Время поступления следующего заказа (метод прореживания:
+     * кандидаты идут с пиковой интенсивностью и принимаются
+     * с вероятностью, равной доле текущей интенсивности от пика)
+     * @param after время предыдущего заказа
+     * @return время следующего заказа или null, если до конца суток заказов больше нет
+     */
+    public LocalTime nextArrival(LocalTime after) {
+        double peakPerSecond = peakOrdersPerHour / 3600;
+        double t = after.toNanoOfDay() / 1e9;
+        while (true) {
+            t += -Math.log(1 - orderRandom.nextDouble()) / peakPerSecond;
+            if (t >= SECONDS_PER_DAY) {
+                return null;
+            }
+            if (orderRandom.nextDouble() < intensity(t)) {
+                return LocalTime.ofNanoOfDay((long) (t * 1e9));
+            }
+        }
+    }
+
+    /**
+     * Интенсивность потока в момент t относительно пика
+     * @param secondOfDay секунды от начала суток
+     * @return от NIGHT_SHARE (4:00) до 1 (16:00)
+     */
+    static double intensity(double secondOfDay) {
+        double phase = 2 * Math.PI * (secondOfDay - 4 * 3600) / SECONDS_PER_DAY;
+        return NIGHT_SHARE + (1 - NIGHT_SHARE) * (1 - Math.cos(phase)) / 2;
+    }
+
+    /**
+     * Подать поток заказов на склад через его планировщик событий
+     *
+     * Планируется только ближайшее поступление; заказ создается в момент
+     * поступления, и тогда же планируется следующий.
+     *
+     * @param warehouse склад, подключенный к планировщику
+     * @param from время начала потока
+     * @param until время окончания потока (заказы после него не создаются)
+     */
+    public void streamInto(Warehouse warehouse, LocalTime from, LocalTime until) {
+        if (warehouse.getScheduler() == null) {
+            throw new IllegalStateException("Склад " + warehouse.getId() + " не подключен к планировщику событий");
+        }
+        scheduleNext(warehouse.getScheduler(), from, until, (lines, user) ->
+                warehouse.addOrder(new Order(lines, user.getCoordinates(), warehouse)));
+    }
+
+    /**
+     * Подать поток заказов на несколько складов: каждый заказ направляется
+     * маршрутизатором на ближайший склад, способный его выполнить
+     * @param router маршрутизатор со складами
+     * @param scheduler общий планировщик складов
+     * @param from время начала потока
+     * @param until время окончания потока
+     */
+    public void streamInto(OrderRouter router, EventScheduler scheduler, LocalTime from, LocalTime until) {
+        scheduleNext(scheduler, from, until, (lines, user) -> router.route(lines, user.getCoordinates()));
+    }
+
+    /**
+     * Подать count заказов сразу (пошаговый или многопоточный режим), не сохраняя их
+     * Время создания заказов - текущее время симуляции
+     * @param warehouse склад
+     * @param count количество заказов
+     */
+    public void generateInto(Warehouse warehouse, int count) {
+        for (int i = 0; i < count; i++) {
+            OrderLines lines = nextBasket();
+            User user = nextUser();
+            record(user, lines, SimulationTime.getCurrentTime());
+            warehouse.addOrder(new Order(lines, user.getCoordinates(), warehouse));
+        }
+    }
+
+    private void scheduleNext(EventScheduler scheduler, LocalTime after, LocalTime until, Arrival arrival) {
+        LocalTime time = nextArrival(after);
+        if (time == null || time.isAfter(until)) {
+            return;
+        }
+        scheduler.schedule(time, () -> {
+            OrderLines lines = nextBasket();
+            User user = nextUser();
+            record(user, lines, time);
+            arrival.place(lines, user);
+            scheduleNext(scheduler, time, until, arrival);
+        });
+    }
+
+    private void record(User user, OrderLines lines, LocalTime time) {
+        if (inputLog != null) {
+            inputLog.record(user, lines, time);
+        }
+    }
+
+    /**
+     * Размещение поступившего заказа
+     */
+    private interface Arrival {
+        void place(OrderLines lines, User user);
+    }
+}
@@ -0,0 +1,144 @@
+import java.time.LocalTime;
+
+/**
+ * Класс Событие журнала (LogEvent)
+ *
+ * Типизированная запись о том, что произошло в симуляции: отложенный заказ,
+ * поставка, сборка, доставка, начисление зарплаты и т.д. Событие хранит
+ * ссылки на участников, а текст сообщения строится только при записи
+ * (format), поэтому для отключенного журнала строки не собираются вовсе.
+ * Номер заказа запоминается при создании события: format может выполняться
+ * в фоновом потоке AsyncEventSink, пока заказ меняют потоки симуляции.
+ */
+public class LogEvent {
+    /**
+     * Типы событий
+     */
+    public enum Type {
+        ORDER_DEFERRED,         // Заказ отложен до поставки
+        ORDER_WITHOUT_SUPPLIER, // Заказ отложен, у части товаров нет поставщиков
+        ORDER_CANCELLED,        // Заказ отменен, товаров нет
+        NO_SUPPLIER,            // У товара нет поставщиков
+        SUPPLY_DELIVERED,       // Поставщик доставил товар
+        SUPPLY_EMPTY,           // Поставщик приехал пустым
+        STOCK_SHORTAGE,         // Кладовщику не хватило товара
+        ASSEMBLY_SUSPENDED,     // Сборка заказа приостановлена
+        ORDER_ASSEMBLED,        // Заказ собран
+        ORDER_DELIVERED,        // Заказ доставлен
+        COURIER_RETURNED,       // Курьер вернулся на склад
+        SALARY_COMPUTED         // Работнику начислена зарплата
+    }
+
+    private final Type type;
+    private final LocalTime time;   // Время симуляции в момент события
+    private final String actor;     // Работник или поставщик (id или название)
+    private final Order order;
+    private final String orderId;   // Номер заказа в момент события
+    private final Product product;
+    private final int amount;
+    private final float money;
+
+    private LogEvent(Type type, String actor, Order order, Product product, int amount, float money) {
+        this.type = type;
+        this.time = SimulationTime.getCurrentTime();
+        this.actor = actor;
+        this.order = order;
+        this.orderId = order != null ? order.getOrderId() : null;
+        this.product = product;
+        this.amount = amount;
+        this.money = money;
+    }
+
+    static LogEvent ofOrder(Type type, Order order) {
+        return new LogEvent(type, null, order, null, 0, 0);
+    }
+
+    static LogEvent ofWorker(Type type, String workerId, Order order) {
+        return new LogEvent(type, workerId, order, null, 0, 0);
+    }
+
+    static LogEvent ofProduct(Type type, Order order, Product product) {
+        return new LogEvent(type, null, order, product, 0, 0);
+    }
+
+    static LogEvent ofSupply(Type type, String producerName, Product product, int amount) {
+        return new LogEvent(type, producerName, null, product, amount, 0);
+    }
+
+    static LogEvent ofSalary(String workerId, float money) {
+        return new LogEvent(Type.SALARY_COMPUTED, workerId, null, null, 0, money);
+    }
+
+    // Геттеры
+    public Type getType() {
+        return type;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    public String getActor() {
+        return actor;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public float getMoney() {
+        return money;
+    }
+
+    /**
+     * Сформировать текст сообщения для консоли
+     * @return сообщение
+     */
+    public String format() {
+        switch (type) {
+            case ORDER_DEFERRED:
+                return "⏳ Заказ " + orderId + " отложен: ожидается поставка товаров";
+            case ORDER_WITHOUT_SUPPLIER:
+                return "🚫 Заказ " + orderId + " неполный: отсутствуют поставщики для некоторых товаров";
+            case ORDER_CANCELLED:
+                return "Заказ " + orderId + " отменен: товары отсутствуют";
+            case NO_SUPPLIER:
+                return "⚠️ ВНИМАНИЕ: Для товара '" + product.getName() + "' нет зарегистрированных поставщиков!";
+            case SUPPLY_DELIVERED:
+                return "Поставщик '" + actor + "' доставил " + amount + " ед. товара " + product.getName();
+            case SUPPLY_EMPTY:
+                return "Поставщик '" + actor + "' ничего не доставил. Он впустую приехал.";
+            case STOCK_SHORTAGE:
+                return "Недостаточно товара '" + product.getName() + "' для заказа " + orderId;
+            case ASSEMBLY_SUSPENDED:
+                return "Сборка заказа " + orderId + " приостановлена";
+            case ORDER_ASSEMBLED:
+                return "Заказ " + orderId + " собран и готов к доставке";
+            case ORDER_DELIVERED:
+                return "Курьер " + actor + " доставил заказ " + orderId + " в " + time;
+            case COURIER_RETURNED:
+                return "Курьер " + actor + " вернулся на склад в " + time;
+            case SALARY_COMPUTED:
+                return "Работник " + actor + " заработал: " + money + " руб.";
+            default:
+                return type.name();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
@@ -1,6 +1,6 @@
 import java.time.LocalTime;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
 
 public class Main {
     public static void main(String[] args) {
@@ -18,10 +18,7 @@ public class Main {
         User user = new User("user@mail.com", "Abacab Abacabovich", new Coordinates(15, 15));
 
         // Заказ 5 хинкалей
-        Product[] fiveHinkals = new Product[5];
-
-        Arrays.fill(fiveHinkals, hinkal);
-        user.makeOrder(fiveHinkals, storage);
+        user.makeOrder(Map.of(hinkal, 5), storage);
 
         SimulationTime.setTime(LocalTime.of(9, 0));
         Producer supplier = new Producer("Старик Хинкалыч", hinkal, 5);
@@ -36,5 +33,8 @@ public class Main {
 
         keeper.calculateSalary();
         courier.calculateSalary();
+
+        System.out.println();
+        System.out.print(storage.getMetrics().report(storage));
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+/**
+ * Класс Отключенный журнал (NoOpEventSink)
+ *
+ * Отбрасывает все события. Сообщает isEnabled() = false, поэтому
+ * события даже не создаются - используется для замеров производительности.
+ */
+public class NoOpEventSink implements EventSink {
+    @Override
+    public void publish(LogEvent event) {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+}
@@ -1,5 +1,4 @@
-import java.util.HashMap;
-import java.util.Iterator;
+import java.time.LocalTime;
 import java.util.Map;
 
 /**
@@ -9,8 +8,10 @@ import java.util.Map;
  * статусе выполнения, участниках процесса обработки и географических координатах.
  */
 public class Order {
-    // Идентификатор заказа (генерируется случайно)
-    private final String orderId;
+    // Компактный идентификатор заказа (0 в режиме READABLE)
+    private final long orderKey;
+    // Идентификатор заказа (генерируется случайно; в режиме COMPACT строится по запросу)
+    private String orderId;
     // Идентификатор склада, обрабатывающего заказ
     private final String storageId;
     // Ссылка на склад, обрабатывающий заказ
@@ -20,10 +21,10 @@ public class Order {
     // Координаты пользователя (место доставки)
     private final Coordinates userCoordinates;
     // Сохраняем исходный состав товаров
-    private final Map<Product, Integer> originalProducts;
+    private final OrderLines originalProducts;
 
     // Текущие товары (могут изменяться)
-    private final Map<Product, Integer> products;
+    private final OrderLines products;
     // Идентификатор курьера, назначенного для доставки (-1 если не назначен)
     private String courierId = "NONE";
     // Флаг наличия достаточного количества товаров на складе
@@ -32,6 +33,18 @@ public class Order {
     private boolean isPartial;
     // Текущий статус заказа
     private OrderStatus status = OrderStatus.CREATED;
+    // Время создания заказа (время симуляции)
+    private LocalTime createdAt;
+    // Срок, к которому заказ должен быть доставлен (null - без срока)
+    private LocalTime deadline;
+    // Моменты жизненного цикла (время симуляции, null - этап еще не наступал)
+    private LocalTime deferredAt;          // Последний раз отложен до поставки
+    private LocalTime suppliedAt;          // Последний раз вернулся в очередь после поставки
+    private LocalTime assemblyStartedAt;   // Начало сборки
+    private LocalTime assembledAt;         // Конец сборки
+    private LocalTime deliveredAt;         // Вручение пользователю
+    // Порядковый номер постановки в очередь (см. OrderQueue, 0 - еще не ставился)
+    long queueSequence;
 
     /**
      * Статусы жизненного цикла заказа:
@@ -51,24 +64,71 @@ public class Order {
      * @param storage склад, на котором будет обрабатываться заказ
      */
     public Order(Product[] products, Coordinates userCoordinates, Warehouse storage) {
-        this.orderId = IdGenerator.generateId(IdGenerator.ObjectType.ORDER);
+        this(OrderLines.of(products), userCoordinates, storage);
+    }
+
+    /**
+     * Конструктор заказа из пар товар → количество
+     *
+     * @param quantities количество каждого товара
+     * @param userCoordinates координаты пользователя (место доставки)
+     * @param storage склад, на котором будет обрабатываться заказ
+     */
+    public Order(Map<Product, Integer> quantities, Coordinates userCoordinates, Warehouse storage) {
+        this(OrderLines.of(quantities), userCoordinates, storage);
+    }
+
+    /**
+     * Конструктор заказа из готовых строк
+     *
+     * @param lines строки заказа (заказ хранит их как исходный состав)
+     * @param userCoordinates координаты пользователя (место доставки)
+     * @param storage склад, на котором будет обрабатываться заказ
+     */
+    public Order(OrderLines lines, Coordinates userCoordinates, Warehouse storage) {
+        if (IdGenerator.getMode() == IdGenerator.Mode.COMPACT) {
+            this.orderKey = IdGenerator.nextId(IdGenerator.ObjectType.ORDER);
+        } else {
+            this.orderKey = 0;
+            this.orderId = IdGenerator.generateId(IdGenerator.ObjectType.ORDER);
+        }
         this.storage = storage;
         this.storageId = storage.getId();
         this.userCoordinates = userCoordinates;
         this.storageCoordinates = storage.getCoordinates();
 
-        this.originalProducts = new HashMap<>();
-        for (Product p : products) {
-            originalProducts.put(p, originalProducts.getOrDefault(p, 0) + 1);
-        }
-        this.products = new HashMap<>(originalProducts);
+        this.originalProducts = lines;
+        this.products = originalProducts.copy();
+        this.createdAt = SimulationTime.getCurrentTime();
+    }
+
+    /**
+     * Конструктор восстановленного заказа (см. WarehouseSnapshot)
+     */
+    Order(long orderKey, String orderId, OrderLines originalProducts, OrderLines products,
+          Coordinates userCoordinates, Warehouse storage) {
+        this.orderKey = orderKey;
+        this.orderId = orderId;
+        this.storage = storage;
+        this.storageId = storage.getId();
+        this.userCoordinates = userCoordinates;
+        this.storageCoordinates = storage.getCoordinates();
+        this.originalProducts = originalProducts;
+        this.products = products;
     }
 
     // Геттеры
     public String getOrderId() {
+        if (orderId == null) {
+            orderId = IdGenerator.format(orderKey);
+        }
         return orderId;
     }
 
+    public long getOrderKey() {
+        return orderKey;
+    }
+
     public String getStorageId() {
         return storageId;
     }
@@ -97,11 +157,11 @@ public class Order {
         return enoughInStorage;
     }
 
-    public Map<Product, Integer> getProducts() {
+    public OrderLines getProducts() {
         return products;
     }
 
-    public Map<Product, Integer> getOriginalProducts() {
+    public OrderLines getOriginalProducts() {
         return originalProducts;
     }
 
@@ -109,11 +169,84 @@ public class Order {
         return isPartial;
     }
 
+    public LocalTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalTime getDeadline() {
+        return deadline;
+    }
+
+    public LocalTime getDeferredAt() {
+        return deferredAt;
+    }
+
+    public LocalTime getSuppliedAt() {
+        return suppliedAt;
+    }
+
+    public LocalTime getAssemblyStartedAt() {
+        return assemblyStartedAt;
+    }
+
+    public LocalTime getAssembledAt() {
+        return assembledAt;
+    }
+
+    public LocalTime getDeliveredAt() {
+        return deliveredAt;
+    }
+
+    /**
+     * Получить стоимость заказа по исходному составу
+     * @return сумма цена × количество по всем строкам
+     */
+    public double getValue() {
+        double value = 0;
+        for (int line = 0; line < originalProducts.size(); line++) {
+            value += originalProducts.product(line).getPrice() * originalProducts.quantity(line);
+        }
+        return value;
+    }
+
     // Сеттеры
     public void setEnoughInStorage(boolean enoughInStorage) {
         this.enoughInStorage = enoughInStorage;
     }
 
+    /**
+     * Установить срок доставки заказа (используется QueuePolicy.DEADLINE)
+     * @param deadline время, к которому заказ должен быть доставлен, или null
+     */
+    public void setDeadline(LocalTime deadline) {
+        this.deadline = deadline;
+    }
+
+    void setCreatedAt(LocalTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    // Отметки этапов жизненного цикла текущим временем симуляции
+    void markDeferred() {
+        deferredAt = SimulationTime.getCurrentTime();
+    }
+
+    void markSupplied() {
+        suppliedAt = SimulationTime.getCurrentTime();
+    }
+
+    void markAssemblyStarted() {
+        assemblyStartedAt = SimulationTime.getCurrentTime();
+    }
+
+    void markAssembled() {
+        assembledAt = SimulationTime.getCurrentTime();
+    }
+
+    void markDelivered() {
+        deliveredAt = SimulationTime.getCurrentTime();
+    }
+
     /**
      * Назначить курьера для доставки заказа
      * @param courierId идентификатор курьера
@@ -148,31 +281,33 @@ public class Order {
 
     /**
      * Удалить отсутствующие товары из заказа
+     * Если хотя бы одна строка уменьшена или удалена, заказ помечается частичным
      * @param storage склад для проверки наличия товаров
      * @return true если в заказе остались доступные товары
      */
     public boolean removeUnavailableProducts(Warehouse storage) {
-        Map<Product, Integer> stock = storage.getStock();
+        StockLedger stock = storage.getStock();
         boolean hasAvailableItems = false;
-        Iterator<Map.Entry<Product, Integer>> it = products.entrySet().iterator();
+        int line = 0;
 
-        while (it.hasNext()) {
-            Map.Entry<Product, Integer> entry = it.next();
-            Product p = entry.getKey();
-            int required = entry.getValue();
-            int available = stock.getOrDefault(p, 0);
+        while (line < products.size()) {
+            int required = products.quantity(line);
+            int available = stock.getAvailable(products.productId(line));
 
             if (available < required) {
+                isPartial = true;
                 if (available > 0) {
-                    entry.setValue(available);
+                    products.setQuantity(line, available);
                     hasAvailableItems = true;
                 } else {
-                    it.remove();
+                    products.removeAt(line);
+                    continue;
                 }
             } else {
                 hasAvailableItems = true;
             }
+            line++;
         }
         return hasAvailableItems;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,165 @@
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Класс Строки заказа (OrderLines)
+ *
+ * Состав заказа: идентификатор товара → количество. Строки хранятся
+ * в двух параллельных массивах int в порядке добавления, поэтому обход
+ * и изменение количества не создают объектов Integer.
+ */
+public class OrderLines {
+    private int[] productIds;
+    private int[] quantities;
+    private int size;
+
+    public OrderLines() {
+        this(4);
+    }
+
+    /**
+     * Конструктор
+     * @param capacity ожидаемое количество различных товаров
+     */
+    public OrderLines(int capacity) {
+        this.productIds = new int[Math.max(1, capacity)];
+        this.quantities = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Собрать строки из массива товаров (одна позиция массива = одна единица товара)
+     * @param products массив товаров
+     * @return строки заказа
+     */
+    public static OrderLines of(Product[] products) {
+        OrderLines lines = new OrderLines();
+        IntIntMap lineByProduct = new IntIntMap();
+        for (Product p : products) {
+            int line = lineByProduct.get(p.getId(), -1);
+            if (line < 0) {
+                lineByProduct.put(p.getId(), lines.size);
+                lines.append(p.getId(), 1);
+            } else {
+                lines.quantities[line]++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Собрать строки из пар товар → количество
+     * @param quantities количество каждого товара
+     * @return строки заказа
+     */
+    public static OrderLines of(Map<Product, Integer> quantities) {
+        OrderLines lines = new OrderLines(quantities.size());
+        for (Map.Entry<Product, Integer> entry : quantities.entrySet()) {
+            if (entry.getValue() <= 0) {
+                throw new IllegalArgumentException("Количество товара должно быть положительным: " + entry.getKey().getName());
+            }
+            lines.add(entry.getKey().getId(), entry.getValue());
+        }
+        return lines;
+    }
+
+    /**
+     * Создать независимую копию строк
+     * @return копия
+     */
+    public OrderLines copy() {
+        OrderLines copy = new OrderLines(size);
+        copy.productIds = Arrays.copyOf(productIds, Math.max(1, size));
+        copy.quantities = Arrays.copyOf(quantities, Math.max(1, size));
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Добавить количество товара (к существующей строке или новой строкой)
+     * @param productId идентификатор товара
+     * @param quantity количество
+     */
+    public void add(int productId, int quantity) {
+        int line = indexOf(productId);
+        if (line < 0) {
+            append(productId, quantity);
+        } else {
+            quantities[line] += quantity;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int productId(int line) {
+        return productIds[line];
+    }
+
+    public Product product(int line) {
+        return ProductCatalog.get(productIds[line]);
+    }
+
+    public int quantity(int line) {
+        return quantities[line];
+    }
+
+    public void setQuantity(int line, int quantity) {
+        quantities[line] = quantity;
+    }
+
+    /**
+     * Удалить строку, сохранив порядок остальных
+     * @param line номер строки
+     */
+    public void removeAt(int line) {
+        System.arraycopy(productIds, line + 1, productIds, line, size - line - 1);
+        System.arraycopy(quantities, line + 1, quantities, line, size - line - 1);
+        size--;
+    }
+
+    /**
+     * Получить количество товара в заказе
+     * @param productId идентификатор товара
+     * @return количество или 0, если товара нет
+     */
+    public int quantityOf(int productId) {
+        int line = indexOf(productId);
+        return line < 0 ? 0 : quantities[line];
+    }
+
+    /**
+     * Получить общее количество единиц товара
+     * @return сумма количеств по всем строкам
+     */
+    public int totalItems() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += quantities[i];
+        }
+        return total;
+    }
+
+    private int indexOf(int productId) {
+        for (int i = 0; i < size; i++) {
+            if (productIds[i] == productId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void append(int productId, int quantity) {
+        if (size == productIds.length) {
+            productIds = Arrays.copyOf(productIds, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+        productIds[size] = productId;
+        quantities[size] = quantity;
+        size++;
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Класс Очередь заказов с приоритетом (OrderQueue)
+ *
+ * Двоичная куча заказов, упорядоченная по приоритету QueuePolicy, а при равном
+ * приоритете - по номеру первой постановки в очередь. Вставка и извлечение O(log n).
+ *
+ * Номер постановки закрепляется за заказом при первом offer, поэтому заказ,
+ * вернувшийся в очередь (нет свободного кладовщика, пришла поставка),
+ * не уступает место заказам, поступившим после него.
+ *
+ * Порядок обхода итератором не определен (как у PriorityQueue).
+ */
+public class OrderQueue extends AbstractQueue<Order> {
+    private final QueuePolicy policy;
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>();
+    private long sequence;  // Последний выданный номер постановки
+
+    /**
+     * Конструктор очереди
+     * @param policy политика упорядочивания
+     */
+    public OrderQueue(QueuePolicy policy) {
+        this.policy = policy;
+    }
+
+    public QueuePolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public boolean offer(Order order) {
+        if (order.queueSequence == 0) {
+            order.queueSequence = ++sequence;
+        }
+        heap.offer(new Entry(order, policy.priority(order)));
+        return true;
+    }
+
+    @Override
+    public Order poll() {
+        Entry entry = heap.poll();
+        return entry == null ? null : entry.order;
+    }
+
+    @Override
+    public Order peek() {
+        Entry entry = heap.peek();
+        return entry == null ? null : entry.order;
+    }
+
+    @Override
+    public int size() {
+        return heap.size();
+    }
+
+    @Override
+    public void clear() {
+        heap.clear();
+    }
+
+    @Override
+    public Iterator<Order> iterator() {
+        Iterator<Entry> entries = heap.iterator();
+        return new Iterator<Order>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public Order next() {
+                return entries.next().order;
+            }
+
+            @Override
+            public void remove() {
+                entries.remove();
+            }
+        };
+    }
+
+    /**
+     * Элемент кучи: заказ + вычисленный при постановке приоритет
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final Order order;
+        private final long priority;
+
+        private Entry(Order order, long priority) {
+            this.order = order;
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byPriority = Long.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(order.queueSequence, other.order.queueSequence);
+        }
+    }
+}
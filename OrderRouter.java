@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Класс Маршрутизатор заказов (OrderRouter)
+ *
+ * Направляет заказ на ближайший склад, который может его выполнить.
+ * Склады хранятся в равномерной сетке по координатам; поиск обходит ячейки
+ * кольцами вокруг пользователя и выдает склады в порядке возрастания расстояния,
+ * не вычисляя расстояние до всех складов.
+ *
+ * Если ни один склад не может выполнить заказ целиком, заказ уходит
+ * на ближайший склад, который отложит его до поставки.
+ */
+public class OrderRouter {
+    private final int cellSize;  // Сторона ячейки сетки в у.е.
+    private final Map<Long, List<Warehouse>> cells = new HashMap<>();
+    private int minCellX = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int minCellY = Integer.MAX_VALUE;
+    private int maxCellY = Integer.MIN_VALUE;
+
+    /**
+     * Конструктор с ячейкой 10 у.е. (сетка 10×10 на поле 100×100)
+     */
+    public OrderRouter() {
+        this(10);
+    }
+
+    /**
+     * Конструктор
+     * @param cellSize сторона ячейки сетки
+     */
+    public OrderRouter(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Добавить склад в индекс
+     * @param warehouse склад
+     */
+    public void addWarehouse(Warehouse warehouse) {
+        int cx = cell(warehouse.getCoordinates().getX());
+        int cy = cell(warehouse.getCoordinates().getY());
+        cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(warehouse);
+        minCellX = Math.min(minCellX, cx);
+        maxCellX = Math.max(maxCellX, cx);
+        minCellY = Math.min(minCellY, cy);
+        maxCellY = Math.max(maxCellY, cy);
+    }
+
+    /**
+     * Создать заказ и направить его на ближайший склад, способный его выполнить
+     * @param lines состав заказа
+     * @param userCoordinates координаты пользователя
+     * @return созданный заказ или null, если складов нет
+     */
+    public Order route(OrderLines lines, Coordinates userCoordinates) {
+        Warehouse chosen = null;
+        Warehouse nearest = null;
+        Iterator<Warehouse> candidates = nearest(userCoordinates);
+        while (candidates.hasNext()) {
+            Warehouse warehouse = candidates.next();
+            if (nearest == null) {
+                nearest = warehouse;
+            }
+            if (warehouse.canFulfil(lines)) {
+                chosen = warehouse;
+                break;
+            }
+        }
+        if (chosen == null) {
+            chosen = nearest;
+        }
+        if (chosen == null) {
+            return null;
+        }
+        Order order = new Order(lines, userCoordinates, chosen);
+        chosen.addOrder(order);
+        return order;
+    }
+
+    /**
+     * Обойти склады в порядке возрастания расстояния до точки
+     * @param point точка
+     * @return итератор по складам, ближайший первым
+     */
+    public Iterator<Warehouse> nearest(Coordinates point) {
+        return new NearestIterator(point);
+    }
+
+    private int cell(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Поиск кольцами: после просмотра кольца r все склады дальше r ячеек
+     * находятся не ближе r * cellSize, поэтому найденные склады ближе этой
+     * границы можно выдавать в порядке расстояния.
+     */
+    private class NearestIterator implements Iterator<Warehouse> {
+        private final Coordinates point;
+        private final int centerX;
+        private final int centerY;
+        private final int maxRing;
+        private final PriorityQueue<Candidate> found = new PriorityQueue<>();
+        private int ring = -1;
+
+        NearestIterator(Coordinates point) {
+            this.point = point;
+            this.centerX = cell(point.getX());
+            this.centerY = cell(point.getY());
+            this.maxRing = cells.isEmpty() ? -1 : Math.max(
+                    Math.max(Math.abs(centerX - minCellX), Math.abs(maxCellX - centerX)),
+                    Math.max(Math.abs(centerY - minCellY), Math.abs(maxCellY - centerY)));
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!confirmed() && ring < maxRing) {
+                scanRing(++ring);
+            }
+            return !found.isEmpty();
+        }
+
+        @Override
+        public Warehouse next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return found.poll().warehouse;
+        }
+
+        private boolean confirmed() {
+            return !found.isEmpty() && (ring >= maxRing || found.peek().distance <= (double) ring * cellSize);
+        }
+
+        private void scanRing(int r) {
+            for (int dx = -r; dx <= r; dx++) {
+                int step = (dx == -r || dx == r) ? 1 : 2 * r;
+                for (int dy = -r; dy <= r; dy += Math.max(1, step)) {
+                    List<Warehouse> inCell = cells.get(key(centerX + dx, centerY + dy));
+                    if (inCell != null) {
+                        for (Warehouse warehouse : inCell) {
+                            found.add(new Candidate(warehouse, point.distanceTo(warehouse.getCoordinates())));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        private final Warehouse warehouse;
+        private final double distance;
+
+        private Candidate(Warehouse warehouse, double distance) {
+            this.warehouse = warehouse;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            return Double.compare(distance, other.distance);
+        }
+    }
+}
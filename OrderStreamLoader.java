@@ -0,0 +1,300 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Класс Потоковая загрузка заказов (OrderStreamLoader)
+ *
+ * Читает строки заказов из файла по одной и собирает из подряд идущих строк
+ * одного пользователя (и одного времени и номера заказа, если они указаны) один заказ.
+ * Номер заказа различает два подряд идущих заказа одного пользователя
+ * в один и тот же момент (его пишет InputLog).
+ * В памяти держится только текущий заказ, поэтому размер файла не ограничен.
+ *
+ * Форматы строк:
+ * CSV   - userId,productId,quantity[,HH:MM:SS[,номер заказа]]
+ * JSONL - {"user":"US-...","product":12,"quantity":3,"time":"09:00:00","order":7} (time и order необязательны)
+ *
+ * productId - идентификатор товара в ProductCatalog. Пустые строки и строки
+ * с # пропускаются. Первая значимая строка CSV пропускается, только если
+ * она в точности совпадает с заголовком (см. CSV_HEADERS).
+ */
+public class OrderStreamLoader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final Set<String> CSV_HEADERS = Set.of("user,product,quantity", "user,product,quantity,time",
+            "user,product,quantity,time,order");
+
+    /**
+     * Формат файла
+     */
+    public enum Format {
+        CSV, JSONL
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final Map<String, User> users;  // Идентификатор пользователя → пользователь
+    private long lineNumber;
+    private boolean headerChecked;  // Первая значимая строка уже прочитана
+    private boolean closed;
+
+    // Прочитанная заранее строка следующего заказа
+    private boolean hasPending;
+    private String pendingUser;
+    private int pendingProduct;
+    private int pendingQuantity;
+    private LocalTime pendingTime;
+    private long pendingOrder;  // Номер заказа (-1 - не указан)
+
+    // Текущий собранный заказ
+    private User user;
+    private OrderLines lines;
+    private LocalTime time;
+    private long order;
+
+    /**
+     * Открыть файл заказов
+     * @param file путь к файлу
+     * @param format формат строк
+     * @param users пользователи по идентификатору
+     * @throws IOException если файл не открывается
+     */
+    public OrderStreamLoader(Path file, Format format, Map<String, User> users) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.reader = new BufferedReader(
+                Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE), BUFFER_SIZE);
+        this.format = format;
+        this.users = users;
+    }
+
+    /**
+     * Загрузить все заказы файла в очередь склада
+     * @param file путь к файлу
+     * @param format формат строк
+     * @param users пользователи по идентификатору
+     * @param warehouse склад
+     * @return количество загруженных заказов
+     * @throws IOException при ошибке чтения
+     */
+    public static long loadInto(Path file, Format format, Map<String, User> users, Warehouse warehouse)
+            throws IOException {
+        long count = 0;
+        try (OrderStreamLoader loader = new OrderStreamLoader(file, format, users)) {
+            while (loader.next()) {
+                warehouse.addOrder(new Order(loader.getLines(), loader.getUser().getCoordinates(), warehouse));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Воспроизвести файл заказов по времени через планировщик склада
+     *
+     * Следующий заказ читается из файла только в момент поступления предыдущего,
+     * поэтому ни файл, ни очередь событий не хранят весь журнал целиком.
+     * Заказы без времени поступают сразу. Файл закрывается после последнего заказа
+     * или при ошибке; если прогон останавливается раньше, вызывающий закрывает
+     * возвращенный загрузчик (try-with-resources), и оставшиеся заказы не поступают.
+     *
+     * @param file путь к файлу
+     * @param format формат строк
+     * @param users пользователи по идентификатору
+     * @param warehouse склад, подключенный к планировщику событий
+     * @return загрузчик, который нужно закрыть по окончании прогона
+     * @throws IOException при ошибке чтения первого заказа
+     */
+    public static OrderStreamLoader replayInto(Path file, Format format, Map<String, User> users,
+            Warehouse warehouse) throws IOException {
+        OrderStreamLoader loader = new OrderStreamLoader(file, format, users);
+        try {
+            loader.scheduleNext(warehouse);
+        } catch (IOException | RuntimeException e) {
+            loader.close();
+            throw e;
+        }
+        return loader;
+    }
+
+    private void scheduleNext(Warehouse warehouse) throws IOException {
+        if (closed) {
+            return;
+        }
+        if (!next()) {
+            close();
+            return;
+        }
+        OrderLines orderLines = lines;
+        Coordinates destination = user.getCoordinates();
+        LocalTime arrival = time != null ? time : SimulationTime.getCurrentTime();
+        warehouse.getScheduler().schedule(arrival, () -> {
+            try {
+                warehouse.addOrder(new Order(orderLines, destination, warehouse));
+                scheduleNext(warehouse);
+            } catch (IOException e) {
+                closeQuietly();
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                closeQuietly();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Прочитать следующий заказ
+     * @return false если файл закончился
+     * @throws IOException при ошибке чтения
+     */
+    public boolean next() throws IOException {
+        if (!hasPending && !readLine()) {
+            return false;
+        }
+        String userId = pendingUser;
+        user = users.get(userId);
+        if (user == null) {
+            throw new IllegalArgumentException("Строка " + lineNumber + ": неизвестный пользователь " + userId);
+        }
+        time = pendingTime;
+        order = pendingOrder;
+        lines = new OrderLines();
+        do {
+            lines.add(pendingProduct, pendingQuantity);
+            hasPending = false;
+        } while (readLine() && pendingUser.equals(userId) && sameTime(pendingTime, time) && pendingOrder == order);
+        return true;
+    }
+
+    // Геттеры текущего заказа
+    public User getUser() {
+        return user;
+    }
+
+    public OrderLines getLines() {
+        return lines;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        reader.close();
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {
+            // Исходная ошибка важнее
+        }
+    }
+
+    private static boolean sameTime(LocalTime a, LocalTime b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Прочитать следующую значимую строку в pending-поля
+     * @return false если файл закончился
+     */
+    private boolean readLine() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (!headerChecked) {
+                headerChecked = true;
+                if (format == Format.CSV && CSV_HEADERS.contains(line)) {
+                    continue;
+                }
+            }
+            try {
+                if (format == Format.CSV) {
+                    parseCsv(line);
+                } else {
+                    parseJson(line);
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Строка " + lineNumber + ": не удалось разобрать '" + line + "'", e);
+            }
+            if (pendingQuantity <= 0) {
+                throw new IllegalArgumentException("Строка " + lineNumber + ": количество должно быть положительным");
+            }
+            ProductCatalog.get(pendingProduct);
+            hasPending = true;
+            return true;
+        }
+        hasPending = false;
+        return false;
+    }
+
+    private void parseCsv(String line) {
+        int first = line.indexOf(',');
+        int second = line.indexOf(',', first + 1);
+        int third = line.indexOf(',', second + 1);
+        int fourth = third < 0 ? -1 : line.indexOf(',', third + 1);
+        pendingUser = line.substring(0, first).trim();
+        pendingProduct = Integer.parseInt(line.substring(first + 1, second).trim());
+        pendingTime = null;
+        pendingOrder = -1;
+        if (third < 0) {
+            pendingQuantity = Integer.parseInt(line.substring(second + 1).trim());
+        } else if (fourth < 0) {
+            pendingQuantity = Integer.parseInt(line.substring(second + 1, third).trim());
+            pendingTime = LocalTime.parse(line.substring(third + 1).trim());
+        } else {
+            pendingQuantity = Integer.parseInt(line.substring(second + 1, third).trim());
+            pendingTime = LocalTime.parse(line.substring(third + 1, fourth).trim());
+            pendingOrder = Long.parseLong(line.substring(fourth + 1).trim());
+        }
+    }
+
+    private void parseJson(String line) {
+        pendingUser = jsonValue(line, "user");
+        pendingProduct = Integer.parseInt(jsonValue(line, "product"));
+        pendingQuantity = Integer.parseInt(jsonValue(line, "quantity"));
+        String timeValue = jsonValue(line, "time");
+        pendingTime = timeValue == null ? null : LocalTime.parse(timeValue);
+        String orderValue = jsonValue(line, "order");
+        pendingOrder = orderValue == null ? -1 : Long.parseLong(orderValue);
+    }
+
+    /**
+     * Достать значение поля из плоского JSON-объекта
+     * @return значение без кавычек или null, если поля нет
+     */
+    private static String jsonValue(String line, String key) {
+        int keyAt = line.indexOf("\"" + key + "\"");
+        if (keyAt < 0) {
+            return null;
+        }
+        int colon = line.indexOf(':', keyAt + key.length() + 2);
+        int start = colon + 1;
+        while (Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        if (line.charAt(start) == '"') {
+            return line.substring(start + 1, line.indexOf('"', start + 1));
+        }
+        int end = start;
+        while (end < line.length() && line.charAt(end) != ',' && line.charAt(end) != '}') {
+            end++;
+        }
+        return line.substring(start, end).trim();
+    }
+}
@@ -1,5 +1,3 @@
-import java.util.Map;
-
 /**
  * Класс Поставщик (Producer)
  *
@@ -10,7 +8,7 @@ public class Producer {
     private final String id;     // Уникальный идентификатор поставщика
     private final String name;   // Название компании-поставщика
     private final Product product; // Товар, который поставляет поставщик
-    private int maxCount;
+    private volatile int maxCount; // Сколько товара поставщик еще может поставить
 
     /**
      * Конструктор поставщика
@@ -18,7 +16,11 @@ public class Producer {
      * @param product привязанный товар
      */
     public Producer(String name, Product product, int maxCount) {
-        this.id = IdGenerator.generateId(IdGenerator.ObjectType.PRODUCER);
+        this(IdGenerator.generateId(IdGenerator.ObjectType.PRODUCER), name, product, maxCount);
+    }
+
+    Producer(String id, String name, Product product, int maxCount) {
+        this.id = id;
         this.name = name;
         this.product = product;
         this.maxCount = maxCount;
@@ -46,14 +48,15 @@ public class Producer {
      *
      * Логика работы:
      * 1. Увеличивает количество указанного товара на складе
-     * 2. Использует merge для безопасного обновления значения в Map
-     * 3. Выводит информацию о поставке
+     * 2. Атомарно пополняет складской учет (безопасно при параллельной сборке)
+     * 3. Сообщает о поставке в журнал симуляции
      *
      * @param storage целевой склад
      * @param requestedAmount количество поставляемого товара
+     * @return фактически доставленное количество
      */
-    public void deliverToStorage(Warehouse storage, Integer requestedAmount) {
-        Map<Product, Integer> stock = storage.getStock();
+    public synchronized int deliverToStorage(Warehouse storage, Integer requestedAmount) {
+        StockLedger stock = storage.getStock();
         boolean flag = false;
 
         if (maxCount == 0){
@@ -65,16 +68,15 @@ public class Producer {
         }
 
         if (!flag){
-            int currentAmount = stock.getOrDefault(product, 0);
-            stock.put(product, currentAmount + requestedAmount);
+            stock.add(product, requestedAmount);
 
-            System.out.printf("Поставщик '%s' доставил %d ед. товара %s%n",
-                    name, requestedAmount, product.getName());
+            SimulationLog.supply(LogEvent.Type.SUPPLY_DELIVERED, name, product, requestedAmount);
             maxCount -= requestedAmount;
+            return requestedAmount;
         }
         else{
-            System.out.printf("Поставщик '%s' ничего не доставил. Он впустую приехал.\n",
-                    name);
+            SimulationLog.supply(LogEvent.Type.SUPPLY_EMPTY, name, product, 0);
+            return 0;
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
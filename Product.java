@@ -2,8 +2,11 @@
  * Класс Товар (Product)
  *
  * Представляет товарную единицу в системе. Содержит информацию о товаре.
+ * Каждый товар получает плотный идентификатор из каталога (ProductCatalog),
+ * по которому сравниваются товары и индексируются остатки.
  */
 public class Product {
+    private final int id;       // Идентификатор товара в каталоге
     private final String name;  // Название товара
     private final double price; // Цена товара
 
@@ -15,9 +18,14 @@ public class Product {
     public Product(String name, double price) {
         this.name = name;
         this.price = price;
+        this.id = ProductCatalog.register(this);
     }
 
     // Геттеры
+    public int getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
@@ -25,4 +33,14 @@ public class Product {
     public double getPrice() {
         return price;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Product && ((Product) other).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+}
\ No newline at end of file
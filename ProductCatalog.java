@@ -0,0 +1,57 @@
+import java.util.Arrays;
+
+/**
+ * Класс Каталог товаров (ProductCatalog)
+ *
+ * Выдает каждому товару плотный целочисленный идентификатор (0, 1, 2, ...)
+ * и позволяет найти товар по идентификатору. Плотные идентификаторы
+ * используются как индексы массивов в складском учете и строках заказа
+ * вместо Map с упакованными Integer.
+ *
+ * Регистрация синхронизирована, чтение по идентификатору выполняется без блокировок.
+ */
+public class ProductCatalog {
+    private static final Object lock = new Object();
+    private static volatile Product[] products = new Product[16]; // Идентификатор → товар
+    private static volatile int size;                               // Количество товаров
+
+    /**
+     * Зарегистрировать товар и выдать ему следующий идентификатор
+     * Вызывается из конструктора Product
+     * @param product новый товар
+     * @return плотный идентификатор товара
+     */
+    static int register(Product product) {
+        synchronized (lock) {
+            int id = size;
+            Product[] current = products;
+            if (id == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[id] = product;
+            products = current;
+            size = id + 1;
+            return id;
+        }
+    }
+
+    /**
+     * Найти товар по идентификатору
+     * @param id идентификатор товара
+     * @return товар
+     */
+    public static Product get(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Нет товара с идентификатором " + id);
+        }
+        return products[id];
+    }
+
+    /**
+     * Получить количество зарегистрированных товаров
+     * @return размер каталога (все идентификаторы меньше этого числа)
+     */
+    public static int size() {
+        return size;
+    }
+}
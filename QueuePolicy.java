@@ -0,0 +1,49 @@
+/**
+ * Интерфейс Политика очереди заказов (QueuePolicy)
+ *
+ * Определяет порядок, в котором склад проверяет заказы. Политика сопоставляет
+ * заказу числовой приоритет: чем он меньше, тем раньше заказ обрабатывается.
+ * Приоритет вычисляется один раз при постановке в очередь; заказы с равным
+ * приоритетом обрабатываются в порядке первой постановки в очередь.
+ *
+ * FIFO - порядок очереди по умолчанию (LinkedList, как раньше), остальные
+ * политики используют кучу OrderQueue.
+ */
+public interface QueuePolicy {
+    /**
+     * В порядке поступления (очередь по умолчанию)
+     */
+    QueuePolicy FIFO = order -> 0;
+
+    /**
+     * Сначала заказы с ближайшим сроком доставки, заказы без срока - последними
+     */
+    QueuePolicy DEADLINE = order -> order.getDeadline() == null ? Long.MAX_VALUE : order.getDeadline().toNanoOfDay();
+
+    /**
+     * Сначала заказы, пользователь которых ближе к складу
+     */
+    QueuePolicy DISTANCE = order -> {
+        long dx = order.getUserCoordinates().getX() - order.getStorageCoordinates().getX();
+        long dy = order.getUserCoordinates().getY() - order.getStorageCoordinates().getY();
+        return dx * dx + dy * dy;
+    };
+
+    /**
+     * Сначала самые дорогие заказы (стоимость с точностью до копейки)
+     */
+    QueuePolicy VALUE = order -> -Math.round(order.getValue() * 100);
+
+    /**
+     * Сначала самые старые заказы (по времени создания), в том числе
+     * отложенные и вернувшиеся в очередь после поставки
+     */
+    QueuePolicy AGE = order -> order.getCreatedAt() == null ? 0 : order.getCreatedAt().toNanoOfDay();
+
+    /**
+     * Вычислить приоритет заказа
+     * @param order заказ
+     * @return приоритет (меньше - раньше)
+     */
+    long priority(Order order);
+}
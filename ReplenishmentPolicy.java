@@ -0,0 +1,50 @@
+/**
+ * Класс Политика пополнения (ReplenishmentPolicy)
+ *
+ * Определяет, сколько товара заказать у поставщиков по итогам прохода
+ * по очереди заказов. Товар заказывается, когда прогнозный остаток
+ * (свободный остаток минус спрос отложенных заказов) опускается ниже точки
+ * перезаказа; объем поставки доводит остаток до точки перезаказа плюс страховой запас.
+ *
+ * Политика по умолчанию (точка перезаказа 0, страховой запас 10)
+ * заказывает дефицит + 10 единиц.
+ */
+public class ReplenishmentPolicy {
+    public static final ReplenishmentPolicy DEFAULT = new ReplenishmentPolicy(0, 10);
+
+    private final int reorderPoint;  // Точка перезаказа
+    private final int safetyStock;   // Страховой запас
+
+    /**
+     * Конструктор политики
+     * @param reorderPoint остаток, ниже которого товар заказывается
+     * @param safetyStock запас сверх точки перезаказа
+     */
+    public ReplenishmentPolicy(int reorderPoint, int safetyStock) {
+        this.reorderPoint = reorderPoint;
+        this.safetyStock = safetyStock;
+    }
+
+    // Геттеры
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+
+    public int getSafetyStock() {
+        return safetyStock;
+    }
+
+    /**
+     * Рассчитать объем поставки товара
+     * @param available свободный остаток
+     * @param demand спрос отложенных заказов
+     * @return количество для заказа у поставщиков (0 - не заказывать)
+     */
+    public int orderQuantity(int available, int demand) {
+        int projected = available - demand;
+        if (projected >= reorderPoint) {
+            return 0;
+        }
+        return reorderPoint - projected + safetyStock;
+    }
+}
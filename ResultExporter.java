@@ -0,0 +1,165 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalTime;
+
+/**
+ * Класс Двоичная выгрузка результатов (ResultExporter)
+ *
+ * Получатель событий, который по ходу симуляции пишет записи фиксированной
+ * длины о завершенных заказах (доставлен или отменен) и, по запросу,
+ * о работниках склада. Записи не копятся в памяти: каждая сразу уходит
+ * в буфер BinaryOutput и на диск, когда буфер заполнен. Чтобы запись не шла
+ * в потоке симуляции, получатель можно обернуть в AsyncEventSink.
+ *
+ * Формат файла (big-endian):
+ * заголовок: int MAGIC, int VERSION, int ORDER_RECORD_SIZE, int WORKER_RECORD_SIZE
+ * запись заказа (ORDER_RECORD_SIZE байт):
+ *   byte ORDER_RECORD, id[24], long ключ заказа, склад[24], курьер[24],
+ *   6 × long время (создан, отложен, поставка, начало сборки, собран, вручен;
+ *   наносекунды от начала суток, -1 если этапа не было),
+ *   double расстояние склад → пользователь, int строк, int единиц товара,
+ *   int единиц в исходном заказе, byte статус (Order.OrderStatus.ordinal),
+ *   byte частичный заказ (Order.isPartial)
+ * запись работника (WORKER_RECORD_SIZE байт):
+ *   byte WORKER_RECORD, id[24], byte тип (0 - кладовщик, 1 - курьер),
+ *   long начало и long конец смены (нс от начала суток), long занятые секунды,
+ *   int выполнено заказов, double пройденное расстояние, double стоимость смены
+ * Строки [24] - UTF-8, дополненные нулями до 24 байт. Курьер - тот, кто вез
+ * заказ (Order.assignCourier), или "NONE" для недоставленного заказа.
+ */
+public class ResultExporter implements EventSink {
+    public static final int MAGIC = 0x53524553;  // "SRES"
+    public static final int VERSION = 1;
+    public static final int ID_WIDTH = 24;
+
+    public static final byte ORDER_RECORD = 1;
+    public static final byte WORKER_RECORD = 2;
+    public static final int ORDER_RECORD_SIZE = 1 + ID_WIDTH + Long.BYTES + 2 * ID_WIDTH
+            + 6 * Long.BYTES + Double.BYTES + 3 * Integer.BYTES + 2;
+    public static final int WORKER_RECORD_SIZE = 1 + ID_WIDTH + 1 + 3 * Long.BYTES
+            + Integer.BYTES + 2 * Double.BYTES;
+
+    private final BinaryOutput out;
+    private long ordersWritten;
+    private long workersWritten;
+
+    /**
+     * Создать файл выгрузки (существующий файл перезаписывается)
+     * @param file путь к файлу
+     * @throws IOException если файл не создается
+     */
+    public ResultExporter(Path file) throws IOException {
+        this.out = new BinaryOutput(file);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(ORDER_RECORD_SIZE);
+        out.writeInt(WORKER_RECORD_SIZE);
+    }
+
+    /**
+     * Записать заказ, если событие завершает его обработку
+     * @param event событие журнала
+     */
+    @Override
+    public synchronized void publish(LogEvent event) {
+        if (event.getType() == LogEvent.Type.ORDER_DELIVERED || event.getType() == LogEvent.Type.ORDER_CANCELLED) {
+            try {
+                writeOrder(event.getOrder());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Записать заказ
+     * @param order заказ
+     * @throws IOException при ошибке записи
+     */
+    public synchronized void writeOrder(Order order) throws IOException {
+        out.writeByte(ORDER_RECORD);
+        out.writeFixedString(order.getOrderId(), ID_WIDTH);
+        out.writeLong(order.getOrderKey());
+        out.writeFixedString(order.getStorageId(), ID_WIDTH);
+        out.writeFixedString(order.getCourierId(), ID_WIDTH);
+        writeTime(order.getCreatedAt());
+        writeTime(order.getDeferredAt());
+        writeTime(order.getSuppliedAt());
+        writeTime(order.getAssemblyStartedAt());
+        writeTime(order.getAssembledAt());
+        writeTime(order.getDeliveredAt());
+        out.writeDouble(order.getStorageCoordinates().distanceTo(order.getUserCoordinates()));
+        out.writeInt(order.getProducts().size());
+        out.writeInt(order.getProducts().totalItems());
+        out.writeInt(order.getOriginalProducts().totalItems());
+        out.writeByte(order.getStatus().ordinal());
+        out.writeByte(order.isPartial() ? 1 : 0);
+        ordersWritten++;
+    }
+
+    /**
+     * Записать работника (обычно в конце прогона, после расчета смен)
+     * @param worker кладовщик или курьер
+     * @throws IOException при ошибке записи
+     */
+    public synchronized void writeWorker(Worker worker) throws IOException {
+        out.writeByte(WORKER_RECORD);
+        out.writeFixedString(worker.getId(), ID_WIDTH);
+        out.writeByte(worker instanceof Courier ? 1 : 0);
+        out.writeLong(worker.getStartShift().toNanoOfDay());
+        out.writeLong(worker.getEndShift().toNanoOfDay());
+        out.writeLong(worker.getBusySeconds());
+        out.writeInt(worker.getOrdersHandled());
+        out.writeDouble(worker instanceof Courier ? ((Courier) worker).getDistanceTravelled() : 0);
+        out.writeDouble(worker.getShiftCost());
+        workersWritten++;
+    }
+
+    /**
+     * Записать всех кладовщиков и курьеров склада
+     * @param warehouse склад
+     * @throws IOException при ошибке записи
+     */
+    public void writeWorkers(Warehouse warehouse) throws IOException {
+        for (Warehouseman keeper : warehouse.getStorekeepers()) {
+            writeWorker(keeper);
+        }
+        for (Courier courier : warehouse.getCouriers()) {
+            writeWorker(courier);
+        }
+    }
+
+    // Геттеры
+    public synchronized long getOrdersWritten() {
+        return ordersWritten;
+    }
+
+    public synchronized long getWorkersWritten() {
+        return workersWritten;
+    }
+
+    /**
+     * Передать накопленные записи в файл
+     */
+    public synchronized void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeTime(LocalTime time) throws IOException {
+        out.writeLong(time == null ? -1 : time.toNanoOfDay());
+    }
+}
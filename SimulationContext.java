@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Класс Контекст симуляции (SimulationContext)
+ *
+ * Единое зерно прогона, от которого зависят все случайные величины:
+ * идентификаторы (IdGenerator.setSeed) и случайные последовательности
+ * участников (генератор нагрузки и т.п.), которые берут независимую
+ * последовательность по назначению через random(purpose).
+ *
+ * Воспроизведение прогона: InputLog записывает зерно и поступающие заказы;
+ * replay читает зерно из журнала и заново начинает контекст, после чего сценарий
+ * (склады, работники, пользователи) строится тем же кодом, а заказы подаются
+ * из журнала через replayOrders. Поскольку идентификаторы и время поступления
+ * совпадают, совпадает и весь ход симуляции.
+ *
+ * Воспроизводимость гарантируется для однопоточных режимов (пошагового
+ * и событийного) и для SimulationRunner, где каждый склад получает собственное
+ * зерно идентификаторов (IdGenerator.withOwnSeed). В StagedRuntime потоки
+ * берут идентификаторы из общего зерна, и порядок их работы не задан.
+ */
+public class SimulationContext {
+    private final long seed;
+
+    private SimulationContext(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Начать прогон с заданным зерном
+     * @param seed зерно
+     * @return контекст прогона
+     */
+    public static SimulationContext start(long seed) {
+        IdGenerator.setSeed(seed);
+        return new SimulationContext(seed);
+    }
+
+    /**
+     * Начать воспроизведение прогона по его журналу входных данных
+     * @param inputLog журнал, записанный InputLog
+     * @return контекст с зерном исходного прогона
+     * @throws IOException при ошибке чтения
+     */
+    public static SimulationContext replay(Path inputLog) throws IOException {
+        return start(InputLog.readSeed(inputLog));
+    }
+
+    // Геттеры
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Зерно для отдельного участника прогона
+     * Одинаковые назначения получают одинаковое зерно, разные - независимые
+     * @param purpose назначение (например, "load")
+     * @return производное зерно
+     */
+    public long seedFor(String purpose) {
+        return new SplittableRandom(seed ^ (purpose.hashCode() * 0x9E3779B97F4A7C15L)).nextLong();
+    }
+
+    /**
+     * Случайная последовательность для отдельного участника прогона
+     * @param purpose назначение
+     * @return генератор со своим зерном
+     */
+    public SplittableRandom random(String purpose) {
+        return new SplittableRandom(seedFor(purpose));
+    }
+
+    /**
+     * Создать генератор нагрузки с зерном контекста
+     * @param userCount количество пользователей
+     * @param catalog каталог товаров в порядке убывания популярности
+     * @param zipfExponent показатель закона Ципфа
+     * @return генератор
+     */
+    public LoadGenerator loadGenerator(int userCount, Product[] catalog, double zipfExponent) {
+        return new LoadGenerator(seedFor("load"), userCount, catalog, zipfExponent);
+    }
+
+    /**
+     * Открыть журнал входных данных этого прогона
+     * @param file путь к журналу
+     * @return журнал с зерном контекста
+     * @throws IOException если файл не создается
+     */
+    public InputLog openInputLog(Path file) throws IOException {
+        return new InputLog(file, seed);
+    }
+
+    /**
+     * Подать заказы журнала на склад в их исходное время
+     * @param inputLog журнал входных данных
+     * @param users пользователи воспроизводимого прогона
+     * @param warehouse склад, подключенный к планировщику событий
+     * @return загрузчик журнала, который нужно закрыть по окончании прогона
+     * @throws IOException при ошибке чтения
+     */
+    public OrderStreamLoader replayOrders(Path inputLog, Iterable<User> users, Warehouse warehouse)
+            throws IOException {
+        Map<String, User> byId = new HashMap<>();
+        for (User user : users) {
+            byId.put(user.getId(), user);
+        }
+        return OrderStreamLoader.replayInto(inputLog, OrderStreamLoader.Format.CSV, byId, warehouse);
+    }
+}
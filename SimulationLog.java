@@ -0,0 +1,62 @@
+/**
+ * Класс Журнал симуляции (SimulationLog)
+ *
+ * Единая точка публикации событий симуляции. Вместо System.out участники
+ * (склад, кладовщики, курьеры, поставщики) сообщают о событиях сюда, а журнал
+ * передает их текущему получателю (EventSink). По умолчанию события печатаются
+ * в консоль; для замеров подключается NoOpEventSink, и события не создаются.
+ */
+public class SimulationLog {
+    private static volatile EventSink sink = new ConsoleEventSink();
+
+    /**
+     * Установить получателя событий
+     * @param newSink новый получатель
+     */
+    public static void setSink(EventSink newSink) {
+        sink = newSink;
+    }
+
+    public static EventSink getSink() {
+        return sink;
+    }
+
+    public static boolean isEnabled() {
+        return sink.isEnabled();
+    }
+
+    static void order(LogEvent.Type type, Order order) {
+        EventSink current = sink;
+        if (current.isEnabled()) {
+            current.publish(LogEvent.ofOrder(type, order));
+        }
+    }
+
+    static void worker(LogEvent.Type type, String workerId, Order order) {
+        EventSink current = sink;
+        if (current.isEnabled()) {
+            current.publish(LogEvent.ofWorker(type, workerId, order));
+        }
+    }
+
+    static void product(LogEvent.Type type, Order order, Product product) {
+        EventSink current = sink;
+        if (current.isEnabled()) {
+            current.publish(LogEvent.ofProduct(type, order, product));
+        }
+    }
+
+    static void supply(LogEvent.Type type, String producerName, Product product, int amount) {
+        EventSink current = sink;
+        if (current.isEnabled()) {
+            current.publish(LogEvent.ofSupply(type, producerName, product, amount));
+        }
+    }
+
+    static void salary(String workerId, float money) {
+        EventSink current = sink;
+        if (current.isEnabled()) {
+            current.publish(LogEvent.ofSalary(workerId, money));
+        }
+    }
+}
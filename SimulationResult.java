@@ -0,0 +1,118 @@
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Класс Результат симуляции (SimulationResult)
+ *
+ * Итоги прогона одного или нескольких складов. Результаты отдельных
+ * складов объединяются через merge, суммарные показатели пересчитываются.
+ */
+public class SimulationResult {
+    private final List<WarehouseSummary> warehouses = new ArrayList<>();
+    private long deliveredOrders;  // Доставлено заказов на всех складах
+    private long pendingOrders;    // Заказов осталось в очередях
+    private final Histogram latency = new Histogram();  // Полный цикл заказа на всех складах (сек)
+    private final StringBuilder report = new StringBuilder(); // Отчеты метрик складов
+
+    /**
+     * Создать результат по состоянию склада на конец прогона
+     * @param warehouse склад
+     * @return результат с одним складом
+     */
+    public static SimulationResult of(Warehouse warehouse) {
+        SimulationResult result = new SimulationResult();
+        result.add(new WarehouseSummary(
+                warehouse.getId(),
+                warehouse.getDeliveredCount(),
+                warehouse.getOrders().size() + warehouse.getReadyForDelivery().size(),
+                SimulationTime.getCurrentTime()));
+        result.latency.add(warehouse.getMetrics().getEndToEnd());
+        result.report.append(warehouse.getMetrics().report(warehouse));
+        return result;
+    }
+
+    /**
+     * Объединить с результатом другой части прогона
+     * @param other другой результат
+     * @return этот результат
+     */
+    public SimulationResult merge(SimulationResult other) {
+        for (WarehouseSummary summary : other.warehouses) {
+            add(summary);
+        }
+        latency.add(other.latency);
+        report.append(other.report);
+        return this;
+    }
+
+    private void add(WarehouseSummary summary) {
+        warehouses.add(summary);
+        deliveredOrders += summary.getDeliveredOrders();
+        pendingOrders += summary.getPendingOrders();
+    }
+
+    // Геттеры
+    public List<WarehouseSummary> getWarehouses() {
+        return Collections.unmodifiableList(warehouses);
+    }
+
+    public long getDeliveredOrders() {
+        return deliveredOrders;
+    }
+
+    public long getPendingOrders() {
+        return pendingOrders;
+    }
+
+    /**
+     * Получить распределение полного цикла заказа (создание → вручение) по всем складам
+     * @return гистограмма в секундах
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Получить отчеты метрик всех складов прогона
+     * @return текст отчета
+     */
+    public String getReport() {
+        return report.toString();
+    }
+
+    /**
+     * Итоги одного склада
+     */
+    public static class WarehouseSummary {
+        private final String warehouseId;
+        private final int deliveredOrders;
+        private final int pendingOrders;
+        private final LocalTime finishTime;
+
+        public WarehouseSummary(String warehouseId, int deliveredOrders, int pendingOrders, LocalTime finishTime) {
+            this.warehouseId = warehouseId;
+            this.deliveredOrders = deliveredOrders;
+            this.pendingOrders = pendingOrders;
+            this.finishTime = finishTime;
+        }
+
+        // Геттеры
+        public String getWarehouseId() {
+            return warehouseId;
+        }
+
+        public int getDeliveredOrders() {
+            return deliveredOrders;
+        }
+
+        public int getPendingOrders() {
+            return pendingOrders;
+        }
+
+        public LocalTime getFinishTime() {
+            return finishTime;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import java.time.LocalTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Класс Параллельный прогон (SimulationRunner)
+ *
+ * Запускает симуляцию нескольких независимых складов на пуле fork-join.
+ * Список складов делится на части по ядрам, каждый склад получает собственные
+ * часы (SimulationTime.withOwnClock) и собственный планировщик событий,
+ * а результаты объединяются в один SimulationResult.
+ *
+ * Склады не должны иметь общих изменяемых объектов (поставщиков, работников, заказов).
+ *
+ * Если идентификаторы засеяны (IdGenerator.setSeed, SimulationContext), каждый склад
+ * также получает собственное зерно идентификаторов (IdGenerator.withOwnSeed),
+ * выведенное из общего по номеру склада в списке, и свой диапазон номеров.
+ * Поэтому идентификаторы, созданные сценарием, не зависят от распределения
+ * складов по потокам, и прогон воспроизводим.
+ */
+public class SimulationRunner {
+    private static final long IDS_PER_WAREHOUSE = 1L << 28;  // Номеров идентификаторов на склад
+
+    private final int parallelism;
+
+    /**
+     * Сценарий, который наполняет склад работниками, поставщиками и заказами
+     * Вызывается в потоке прогона с уже подключенным планировщиком
+     */
+    public interface Scenario {
+        void setUp(Warehouse warehouse, EventScheduler scheduler);
+    }
+
+    /**
+     * Конструктор с числом потоков по количеству ядер
+     */
+    public SimulationRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Конструктор
+     * @param parallelism число потоков
+     */
+    public SimulationRunner(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Прогнать все склады с startTime до endTime
+     * @param warehouses склады
+     * @param startTime начало прогона
+     * @param endTime конец прогона
+     * @param scenario сценарий для каждого склада
+     * @return объединенный результат
+     */
+    public SimulationResult run(List<Warehouse> warehouses, LocalTime startTime, LocalTime endTime,
+                                Scenario scenario) {
+        int shardSize = Math.max(1, warehouses.size() / (parallelism * 4));
+        long[] idSeeds = null;
+        if (IdGenerator.isSeeded()) {
+            SplittableRandom seeds = new SplittableRandom(IdGenerator.forkSeed());
+            idSeeds = new long[warehouses.size()];
+            for (int i = 0; i < idSeeds.length; i++) {
+                idSeeds[i] = seeds.nextLong();
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new Shard(warehouses, 0, idSeeds, shardSize, startTime, endTime, scenario));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Прогнать один склад в текущем потоке с собственными часами
+     * (и собственным зерном идентификаторов, если они засеяны)
+     */
+    private static SimulationResult runWarehouse(Warehouse warehouse, int index, long[] idSeeds,
+                                                 LocalTime startTime, LocalTime endTime, Scenario scenario) {
+        if (idSeeds != null) {
+            return IdGenerator.withOwnSeed(idSeeds[index], index * IDS_PER_WAREHOUSE,
+                    () -> runWarehouse(warehouse, index, null, startTime, endTime, scenario));
+        }
+        return SimulationTime.withOwnClock(startTime, () -> {
+            EventScheduler scheduler = new EventScheduler();
+            warehouse.attachScheduler(scheduler);
+            scenario.setUp(warehouse, scheduler);
+            scheduler.runUntil(endTime);
+            return SimulationResult.of(warehouse);
+        });
+    }
+
+    /**
+     * Часть списка складов; делится пополам, пока не станет не больше shardSize
+     */
+    private static class Shard extends RecursiveTask<SimulationResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Warehouse> warehouses;
+        private final int offset;        // Номер первого склада части в исходном списке
+        private final long[] idSeeds;    // Зерна идентификаторов складов (null - не засеяны)
+        private final int shardSize;
+        private final LocalTime startTime;
+        private final LocalTime endTime;
+        private final Scenario scenario;
+
+        Shard(List<Warehouse> warehouses, int offset, long[] idSeeds, int shardSize,
+              LocalTime startTime, LocalTime endTime, Scenario scenario) {
+            this.warehouses = warehouses;
+            this.offset = offset;
+            this.idSeeds = idSeeds;
+            this.shardSize = shardSize;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.scenario = scenario;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (warehouses.size() <= shardSize) {
+                SimulationResult result = new SimulationResult();
+                for (int i = 0; i < warehouses.size(); i++) {
+                    result.merge(runWarehouse(warehouses.get(i), offset + i, idSeeds, startTime, endTime, scenario));
+                }
+                return result;
+            }
+            int middle = warehouses.size() / 2;
+            Shard left = new Shard(warehouses.subList(0, middle), offset, idSeeds, shardSize,
+                    startTime, endTime, scenario);
+            Shard right = new Shard(warehouses.subList(middle, warehouses.size()), offset + middle, idSeeds, shardSize,
+                    startTime, endTime, scenario);
+            left.fork();
+            SimulationResult rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+    }
+}
@@ -1,4 +1,5 @@
 import java.time.LocalTime;
+import java.util.function.Supplier;
 
 /**
  * Класс Симуляции Времени (SimulationTime)
@@ -10,17 +11,23 @@ import java.time.LocalTime;
  *
  * Важно: Используется для синхронизации процессов в системе
  * вместо реального времени, что ускоряет тестирование.
+ *
+ * По умолчанию все потоки используют общие часы. Поток может временно
+ * получить собственные часы через withOwnClock - так независимые склады
+ * симулируются параллельно, не мешая друг другу.
  */
 public class SimulationTime {
-    // Текущее время симуляции (статическая переменная)
-    private static LocalTime currentTime;
+    // Общие часы симуляции
+    private static final Clock GLOBAL = new Clock();
+    // Собственные часы потока (null - используются общие)
+    private static final ThreadLocal<Clock> BOUND = new ThreadLocal<>();
 
     /**
      * Установить текущее время симуляции
      * @param time новое время для симуляции
      */
     public static void setTime(LocalTime time) {
-        currentTime = time;
+        current().time = time;
     }
 
     /**
@@ -28,7 +35,7 @@ public class SimulationTime {
      * @return текущее виртуальное время
      */
     public static LocalTime getCurrentTime() {
-        return currentTime;
+        return current().time;
     }
 
     /**
@@ -36,6 +43,42 @@ public class SimulationTime {
      * @param seconds количество секунд для добавления
      */
     public static void addSeconds(long seconds) {
-        currentTime = currentTime.plusSeconds(seconds);
+        Clock clock = current();
+        clock.time = clock.time.plusSeconds(seconds);
+    }
+
+    /**
+     * Выполнить задачу с собственными часами текущего потока
+     * После завершения задачи поток возвращается к прежним часам
+     * @param startTime начальное время собственных часов
+     * @param task задача
+     * @return результат задачи
+     */
+    public static <T> T withOwnClock(LocalTime startTime, Supplier<T> task) {
+        Clock previous = BOUND.get();
+        Clock own = new Clock();
+        own.time = startTime;
+        BOUND.set(own);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                BOUND.remove();
+            } else {
+                BOUND.set(previous);
+            }
+        }
+    }
+
+    private static Clock current() {
+        Clock bound = BOUND.get();
+        return bound != null ? bound : GLOBAL;
+    }
+
+    /**
+     * Часы симуляции
+     */
+    private static final class Clock {
+        private LocalTime time;
     }
 }
\ No newline at end of file
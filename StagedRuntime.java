@@ -0,0 +1,550 @@
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Класс Многопоточная среда выполнения склада (StagedRuntime)
+ *
+ * Обрабатывает заказы одного склада конвейером из трех стадий, соединенных
+ * ограниченными очередями:
+ * - приемка: addOrder кладет заказ во входную очередь (intake)
+ * - проверка остатков: один поток проверяет наличие товара, откладывает заказы
+ *   до поставки (листы ожидания ведет сам) и передает остальные на сборку
+ * - сборка: отдельный поток на каждого кладовщика, волна до waveSize заказов
+ * - доставка: отдельный поток на каждого курьера, поездка до courierCapacity заказов
+ *
+ * Если очередь следующей стадии заполнена, предыдущая стадия ждет (backpressure),
+ * вплоть до потока, вызвавшего addOrder. Заказы, которые нужно вернуть назад
+ * (сборка прервана, смена закончилась), идут в неограниченную очередь возврата,
+ * чтобы стадии не ждали друг друга по кругу.
+ *
+ * Каждый работник живет по собственным часам SimulationTime (withOwnClock):
+ * сборка и доставка сдвигают только его время, поэтому работники выполняют
+ * заказы параллельно и в симулированном, и в реальном времени. После
+ * shutdown общие часы переводятся на момент, когда освободился последний работник.
+ *
+ * Пока среда запущена, склад нельзя подключать к планировщику событий
+ * и вызывать completeOrders; работников и поставщиков добавляют до start.
+ */
+public class StagedRuntime {
+    private static final long POLL_MILLIS = 20;
+
+    private final Warehouse storage;
+    private final BlockingQueue<Order> intake;     // Принятые заказы → проверка остатков
+    private final BlockingQueue<Order> picking;    // Проверенные заказы → кладовщики
+    private final BlockingQueue<Order> dispatch;   // Собранные заказы → курьеры
+    private final Queue<Order> returned = new ConcurrentLinkedQueue<>();        // Заказы на повторную проверку
+    private final Queue<Order> pendingDispatch = new ConcurrentLinkedQueue<>(); // Возвращенные курьерами и собранные до запуска
+    private final Queue<Order> stranded = new ConcurrentLinkedQueue<>();        // Заказы, которые некому выполнить
+    private final Queue<Wakeup> wakeups = new ConcurrentLinkedQueue<>();        // Пополнения товаров для листов ожидания
+    private final Map<Integer, Deque<Order>> parked = new HashMap<>();          // Товар → отложенные заказы (поток проверки)
+
+    private final AtomicInteger inFlight = new AtomicInteger();      // Заказы в работе (и необработанные пополнения)
+    private final AtomicInteger activeKeepers = new AtomicInteger();
+    private final AtomicInteger activeCouriers = new AtomicInteger();
+    private final AtomicLong finishedAt = new AtomicLong();           // Позднее время освобождения работника (нс от начала суток)
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    private LocalTime startTime;
+
+    /**
+     * Конструктор среды выполнения
+     * @param storage склад
+     * @param queueCapacity вместимость каждой из очередей между стадиями
+     */
+    public StagedRuntime(Warehouse storage, int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Вместимость очереди должна быть положительной: " + queueCapacity);
+        }
+        this.storage = storage;
+        this.intake = new ArrayBlockingQueue<>(queueCapacity);
+        this.picking = new ArrayBlockingQueue<>(queueCapacity);
+        this.dispatch = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Запустить потоки стадий
+     *
+     * Заказы, уже стоящие в очереди склада, в листах ожидания и в очереди
+     * на доставку, переходят под управление среды.
+     *
+     * @param startTime время симуляции, с которого начинают работу потоки
+     */
+    public synchronized void start(LocalTime startTime) {
+        if (running) {
+            throw new IllegalStateException("Среда выполнения склада " + storage.getId() + " уже запущена");
+        }
+        storage.setRuntime(this);
+        this.startTime = startTime;
+        finishedAt.set(startTime.toNanoOfDay());
+        running = true;
+
+        Queue<Order> queued = storage.queuedOrders();
+        for (Order order = queued.poll(); order != null; order = queued.poll()) {
+            inFlight.incrementAndGet();
+            returned.add(order);
+        }
+        storage.takeWaitLists().forEach((product, orders) ->
+                parked.computeIfAbsent(product.getId(), id -> new ArrayDeque<>()).addAll(orders));
+        Queue<Order> ready = storage.getReadyForDelivery();
+        for (Order order = ready.poll(); order != null; order = ready.poll()) {
+            inFlight.incrementAndGet();
+            pendingDispatch.add(order);
+        }
+
+        activeKeepers.set(storage.getStorekeepers().size());
+        activeCouriers.set(storage.getCouriers().size());
+        threads.add(newThread("check-" + storage.getId(), this::checkStock));
+        for (Warehouseman keeper : storage.getStorekeepers()) {
+            threads.add(newThread(keeper.getId(), () -> pick(keeper)));
+        }
+        for (Courier courier : storage.getCouriers()) {
+            threads.add(newThread(courier.getId(), () -> deliver(courier)));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+    }
+
+    /**
+     * Дождаться, пока все принятые заказы будут доставлены, отложены до поставки
+     * или окажутся без работника на смене
+     * @param timeoutMillis максимальное время ожидания
+     * @return false если время ожидания истекло
+     * @throws IllegalStateException если в потоке стадии произошла ошибка
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (inFlight) {
+            while (inFlight.get() > 0 && failure.get() == null) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                inFlight.wait(remaining);
+            }
+        }
+        rethrowFailure();
+        return true;
+    }
+
+    /**
+     * Остановить потоки и вернуть необработанные заказы складу
+     *
+     * Непроверенные и несобранные заказы возвращаются в очередь склада,
+     * отложенные - в листы ожидания, собранные - в очередь на доставку.
+     * Общие часы симуляции переводятся на время освобождения последнего работника.
+     *
+     * @throws IllegalStateException если в потоке стадии произошла ошибка
+     */
+    public synchronized void shutdown() throws InterruptedException {
+        if (!running && threads.isEmpty()) {
+            return;
+        }
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        threads.clear();
+        storage.setRuntime(null);
+
+        Queue<Order> queue = storage.queuedOrders();
+        Queue<Order> ready = storage.getReadyForDelivery();
+        for (Queue<Order> source : List.of(returned, intake, picking, stranded, dispatch, pendingDispatch)) {
+            for (Order order = source.poll(); order != null; order = source.poll()) {
+                if (order.getStatus() == Order.OrderStatus.CREATED) {
+                    queue.offer(order);
+                } else {
+                    ready.offer(order);
+                }
+            }
+        }
+        parked.forEach((productId, orders) -> {
+            for (Order order : orders) {
+                storage.restoreWaiting(ProductCatalog.get(productId), order);
+            }
+        });
+        parked.clear();
+        wakeups.clear();
+        inFlight.set(0);
+
+        LocalTime finished = LocalTime.ofNanoOfDay(finishedAt.get());
+        LocalTime now = SimulationTime.getCurrentTime();
+        if (now == null || finished.isAfter(now)) {
+            SimulationTime.setTime(finished);
+        }
+        rethrowFailure();
+    }
+
+    // Геттеры
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getStranded() {
+        return stranded.size();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Методы, вызываемые складом
+
+    /**
+     * Принять заказ; ждет, если входная очередь заполнена
+     * @param order новый заказ
+     */
+    void accept(Order order) {
+        if (!running) {
+            throw new IllegalStateException("Среда выполнения склада " + storage.getId() + " остановлена");
+        }
+        inFlight.incrementAndGet();
+        try {
+            intake.put(order);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            returned.add(order);
+        }
+    }
+
+    /**
+     * Пополнение товара: ожидающие его заказы будут проверены снова
+     * @param productId пополненный товар
+     */
+    void stockIncreased(int productId) {
+        inFlight.incrementAndGet();
+        wakeups.add(new Wakeup(productId, false));
+    }
+
+    /**
+     * Новый поставщик товара: все ожидающие его заказы будут проверены снова
+     * @param productId товар поставщика
+     */
+    void supplierAdded(int productId) {
+        inFlight.incrementAndGet();
+        wakeups.add(new Wakeup(productId, true));
+    }
+
+    /**
+     * Передать собранный заказ курьерам; ждет, если очередь доставки заполнена
+     * @param order собранный заказ
+     */
+    void assembled(Order order) {
+        handOver(order, dispatch, activeCouriers, pendingDispatch);
+    }
+
+    /**
+     * Вернуть заказ на повторную проверку остатков
+     * @param order заказ, сборку которого пришлось прервать
+     */
+    void requeue(Order order) {
+        returned.add(order);
+    }
+
+    /**
+     * Отметить доставку заказа
+     * @param order доставленный заказ
+     */
+    void delivered(Order order) {
+        leave();
+    }
+
+    // Стадии
+
+    /**
+     * Стадия проверки остатков
+     * Пополнения обрабатываются первыми, затем возвращенные заказы, затем новые
+     */
+    private void checkStock() {
+        SimulationTime.withOwnClock(startTime, () -> {
+            while (running) {
+                Wakeup wakeup = wakeups.poll();
+                if (wakeup != null) {
+                    wake(wakeup);
+                    continue;
+                }
+                Order order = returned.poll();
+                if (order == null) {
+                    order = poll(intake);
+                }
+                if (order != null) {
+                    advanceTo(order.getCreatedAt());
+                    check(order);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Проверить заказ: при нехватке товара отложить его до поставки,
+     * иначе передать кладовщикам
+     */
+    private void check(Order order) {
+        OrderLines lines = order.getOriginalProducts();
+        for (int line = 0; line < lines.size(); line++) {
+            if (storage.getStock().getAvailable(lines.productId(line)) < lines.quantity(line)) {
+                parked.computeIfAbsent(lines.productId(line), id -> new ArrayDeque<>()).offer(order);
+                order.markDeferred();
+                storage.getMetrics().orderDeferred();
+                storage.requestSupplyFor(order);
+                leave();
+                return;
+            }
+        }
+        handOver(order, picking, activeKeepers, returned);
+    }
+
+    /**
+     * Вернуть на проверку заказы, ожидающие пополненного товара
+     * (при пополнении - пока их потребность покрывается свободным остатком)
+     */
+    private void wake(Wakeup wakeup) {
+        Deque<Order> waiting = parked.get(wakeup.productId);
+        int budget = storage.getStock().getAvailable(wakeup.productId);
+        while (waiting != null && !waiting.isEmpty()) {
+            int required = waiting.peekFirst().getOriginalProducts().quantityOf(wakeup.productId);
+            if (!wakeup.all && required > budget) {
+                break;
+            }
+            budget -= required;
+            Order order = waiting.pollFirst();
+            order.markSupplied();
+            storage.getMetrics().orderSupplied(order);
+            inFlight.incrementAndGet();
+            returned.add(order);
+        }
+        leave();
+    }
+
+    /**
+     * Стадия сборки: поток кладовщика
+     * @param keeper кладовщик
+     */
+    private void pick(Warehouseman keeper) {
+        SimulationTime.withOwnClock(later(startTime, keeper.getStartShift()), () -> {
+            List<Order> batch = new ArrayList<>(storage.getWaveSize());
+            while (running) {
+                Order first = poll(picking);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                picking.drainTo(batch, storage.getWaveSize() - 1);
+                for (Order order : batch) {
+                    advanceTo(order.getCreatedAt());
+                    advanceTo(order.getSuppliedAt());
+                }
+                if (SimulationTime.getCurrentTime().isAfter(keeper.getEndShift())) {
+                    returned.addAll(batch);
+                    break;
+                }
+                if (batch.size() == 1) {
+                    keeper.setCurrentOrder(first);
+                } else {
+                    keeper.setWave(new ArrayList<>(batch));
+                }
+                keeper.completeWork();  // Если остаток успел забрать другой кладовщик, заказ вернется через requeue
+                batch.clear();
+                recordFinish();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Стадия доставки: поток курьера
+     * @param courier курьер
+     */
+    private void deliver(Courier courier) {
+        SimulationTime.withOwnClock(later(startTime, courier.getStartShift()), () -> {
+            int capacity = storage.getCourierCapacity();
+            List<Order> trip = new ArrayList<>(capacity);
+            while (running) {
+                Order first = pendingDispatch.poll();
+                if (first == null) {
+                    first = poll(dispatch);
+                }
+                if (first == null) {
+                    continue;
+                }
+                trip.add(first);
+                while (trip.size() < capacity) {
+                    Order next = pendingDispatch.poll();
+                    if (next == null) {
+                        next = dispatch.poll();
+                    }
+                    if (next == null) {
+                        break;
+                    }
+                    trip.add(next);
+                }
+                for (Order order : trip) {
+                    advanceTo(order.getAssembledAt());
+                }
+                if (SimulationTime.getCurrentTime().isAfter(courier.getEndShift())) {
+                    pendingDispatch.addAll(trip);
+                    break;
+                }
+                if (trip.size() == 1) {
+                    courier.setCurrentOrder(first);
+                } else {
+                    courier.setRoute(DeliveryRoute.plan(storage.getCoordinates(), new ArrayList<>(trip)));
+                }
+                courier.completeWork();
+                trip.clear();
+                recordFinish();
+            }
+            return null;
+        });
+    }
+
+    // Вспомогательные методы
+
+    /**
+     * Передать заказ следующей стадии с ожиданием места в очереди
+     *
+     * Если у стадии не осталось работников на смене, заказ и все, что
+     * уже ждет в ее очередях, считаются оставшимися без исполнителя.
+     *
+     * @param order заказ
+     * @param queue очередь следующей стадии
+     * @param workers количество работников стадии на смене
+     * @param backlog дополнительная очередь стадии
+     */
+    private void handOver(Order order, BlockingQueue<Order> queue, AtomicInteger workers, Queue<Order> backlog) {
+        try {
+            while (workers.get() > 0) {
+                if (queue.offer(order, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (workers.get() == 0) {
+                        strand(queue, backlog);
+                    }
+                    return;
+                }
+                if (!running) {
+                    backlog.add(order);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            backlog.add(order);
+            return;
+        }
+        stranded.add(order);
+        leave();
+    }
+
+    /**
+     * Последний работник стадии ушел со смены: ее очереди некому разбирать
+     */
+    private void strand(Queue<Order> queue, Queue<Order> backlog) {
+        for (Queue<Order> source : List.of(queue, backlog)) {
+            for (Order order = source.poll(); order != null; order = source.poll()) {
+                stranded.add(order);
+                leave();
+            }
+        }
+    }
+
+    private Thread newThread(String name, Runnable stage) {
+        Thread thread = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                running = false;
+                synchronized (inFlight) {
+                    inFlight.notifyAll();
+                }
+            } finally {
+                workerLeft(name);
+            }
+        }, "staged-" + name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Поток работника завершился (конец смены или остановка среды)
+     */
+    private void workerLeft(String name) {
+        for (Warehouseman keeper : storage.getStorekeepers()) {
+            if (keeper.getId().equals(name) && activeKeepers.decrementAndGet() == 0 && running) {
+                strand(picking, returned);
+            }
+        }
+        for (Courier courier : storage.getCouriers()) {
+            if (courier.getId().equals(name) && activeCouriers.decrementAndGet() == 0 && running) {
+                strand(dispatch, pendingDispatch);
+            }
+        }
+    }
+
+    private void leave() {
+        if (inFlight.decrementAndGet() == 0) {
+            synchronized (inFlight) {
+                inFlight.notifyAll();
+            }
+        }
+    }
+
+    private void rethrowFailure() {
+        Throwable error = failure.get();
+        if (error != null) {
+            throw new IllegalStateException("Ошибка в потоке склада " + storage.getId(), error);
+        }
+    }
+
+    private Order poll(BlockingQueue<Order> queue) {
+        try {
+            return queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return null;
+        }
+    }
+
+    private void recordFinish() {
+        long now = SimulationTime.getCurrentTime().toNanoOfDay();
+        finishedAt.accumulateAndGet(now, Math::max);
+    }
+
+    private static void advanceTo(LocalTime time) {
+        if (time != null && time.isAfter(SimulationTime.getCurrentTime())) {
+            SimulationTime.setTime(time);
+        }
+    }
+
+    private static LocalTime later(LocalTime a, LocalTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    /**
+     * Пополнение товара для листов ожидания
+     */
+    private static final class Wakeup {
+        private final int productId;
+        private final boolean all;  // Новый поставщик: будить все заказы, а не в пределах остатка
+
+        private Wakeup(int productId, boolean all) {
+            this.productId = productId;
+            this.all = all;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Класс Складской учет (StockLedger)
+ *
+ * Потокобезопасный учет остатков склада. По каждому товару хранится
+ * свободное количество и количество, зарезервированное под сборку.
+ * Оба значения упакованы в один long, поэтому изменения по одному
+ * товару выполняются атомарно через CAS без блокировок, а разные товары
+ * не мешают друг другу.
+ *
+ * Ячейки адресуются плотным идентификатором товара (ProductCatalog) и лежат
+ * в страницах AtomicLongArray. Страница создается при первой поставке товара
+ * из ее диапазона и больше не перемещается.
+ *
+ * Жизненный цикл товара в заказе: reserve (свободное → резерв),
+ * затем commit (резерв списывается) или release (резерв возвращается).
+ */
+public class StockLedger {
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[0];
+    private volatile Listener listener;  // Получатель уведомлений о пополнении
+    private volatile ChangeListener changeListener;  // Получатель изменений количества на складе
+
+    /**
+     * Получатель уведомлений об увеличении свободного остатка
+     * Вызывается в потоке, который изменил остаток
+     */
+    public interface Listener {
+        void stockIncreased(int productId, int available);
+    }
+
+    /**
+     * Получатель изменений количества товара на складе (свободное + резерв):
+     * поставок (delta > 0) и списаний собранных заказов (delta < 0).
+     * Резервирование и снятие резерва количество не меняют и не сообщаются.
+     * Вызывается в потоке, который изменил остаток
+     */
+    public interface ChangeListener {
+        void stockChanged(int productId, int delta);
+    }
+
+    /**
+     * Пустой учет
+     */
+    public StockLedger() {
+    }
+
+    /**
+     * Учет с начальными остатками
+     * @param initialStock начальные остатки: товар → количество
+     */
+    public StockLedger(Map<Product, Integer> initialStock) {
+        for (Map.Entry<Product, Integer> entry : initialStock.entrySet()) {
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Установить получателя уведомлений о пополнении (поставка или снятие резерва)
+     * @param listener получатель или null
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Установить получателя изменений количества товара (например, журнал склада)
+     * @param changeListener получатель или null
+     */
+    public void setChangeListener(ChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Получить свободное (не зарезервированное) количество товара
+     * @param product товар
+     * @return свободный остаток
+     */
+    public int getAvailable(Product product) {
+        return getAvailable(product.getId());
+    }
+
+    public int getAvailable(int productId) {
+        AtomicLongArray page = page(productId);
+        return page == null ? 0 : available(page.get(productId & PAGE_MASK));
+    }
+
+    /**
+     * Получить зарезервированное количество товара
+     * @param product товар
+     * @return резерв
+     */
+    public int getReserved(Product product) {
+        AtomicLongArray page = page(product.getId());
+        return page == null ? 0 : reserved(page.get(product.getId() & PAGE_MASK));
+    }
+
+    /**
+     * Принять поставку товара
+     * @param product товар
+     * @param amount количество
+     */
+    public void add(Product product, int amount) {
+        add(product.getId(), amount);
+    }
+
+    public void add(int productId, int amount) {
+        AtomicLongArray page = pageForWrite(productId);
+        int slot = productId & PAGE_MASK;
+        long current;
+        do {
+            current = page.get(slot);
+        } while (!page.compareAndSet(slot, current, pack(available(current) + amount, reserved(current))));
+        notifyChanged(productId, amount);
+        notifyIncreased(productId, available(current) + amount);
+    }
+
+    /**
+     * Зарезервировать товар, если свободного остатка достаточно
+     * @param product товар
+     * @param amount количество
+     * @return false если свободного остатка не хватает
+     */
+    public boolean tryReserve(Product product, int amount) {
+        return tryReserve(product.getId(), amount);
+    }
+
+    public boolean tryReserve(int productId, int amount) {
+        AtomicLongArray page = page(productId);
+        if (page == null) {
+            return amount <= 0;
+        }
+        int slot = productId & PAGE_MASK;
+        long current;
+        do {
+            current = page.get(slot);
+            if (available(current) < amount) {
+                return false;
+            }
+        } while (!page.compareAndSet(slot, current, pack(available(current) - amount, reserved(current) + amount)));
+        return true;
+    }
+
+    /**
+     * Зарезервировать все строки заказа либо ничего
+     * Если какой-то товар зарезервировать не удалось, уже сделанные резервы снимаются
+     * @param lines строки заказа
+     * @return true если зарезервированы все строки
+     */
+    public boolean tryReserveAll(OrderLines lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            if (!tryReserve(lines.productId(i), lines.quantity(i))) {
+                for (int j = 0; j < i; j++) {
+                    release(lines.productId(j), lines.quantity(j));
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Списать зарезервированный товар (товар покидает склад)
+     * @param productId идентификатор товара
+     * @param amount количество
+     */
+    public void commit(int productId, int amount) {
+        commit(productId, amount, true);
+    }
+
+    public void commit(Product product, int amount) {
+        commit(product.getId(), amount);
+    }
+
+    /**
+     * Списать все зарезервированные строки заказа
+     * @param lines строки заказа
+     */
+    public void commitAll(OrderLines lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            commit(lines.productId(i), lines.quantity(i), true);
+        }
+    }
+
+    /**
+     * Списать строки без уведомления ChangeListener
+     * (списание журналирует вызывающий, см. Warehouse.commitAssembly)
+     * @param lines строки заказа
+     */
+    void commitAllSilently(OrderLines lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            commit(lines.productId(i), lines.quantity(i), false);
+        }
+    }
+
+    private void commit(int productId, int amount, boolean notify) {
+        AtomicLongArray page = pageForWrite(productId);
+        int slot = productId & PAGE_MASK;
+        long current;
+        do {
+            current = page.get(slot);
+        } while (!page.compareAndSet(slot, current, pack(available(current), reserved(current) - amount)));
+        if (notify) {
+            notifyChanged(productId, -amount);
+        }
+    }
+
+    /**
+     * Снять резерв и вернуть товар в свободный остаток
+     * @param productId идентификатор товара
+     * @param amount количество
+     */
+    public void release(int productId, int amount) {
+        AtomicLongArray page = pageForWrite(productId);
+        int slot = productId & PAGE_MASK;
+        long current;
+        do {
+            current = page.get(slot);
+        } while (!page.compareAndSet(slot, current, pack(available(current) + amount, reserved(current) - amount)));
+        notifyIncreased(productId, available(current) + amount);
+    }
+
+    public void release(Product product, int amount) {
+        release(product.getId(), amount);
+    }
+
+    /**
+     * Снять резерв со всех строк заказа
+     * @param lines строки заказа
+     */
+    public void releaseAll(OrderLines lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            release(lines.productId(i), lines.quantity(i));
+        }
+    }
+
+    /**
+     * Получить снимок ненулевых свободных остатков
+     * @return товар → свободное количество
+     */
+    public Map<Product, Integer> snapshot() {
+        Map<Product, Integer> result = new HashMap<>();
+        AtomicLongArray[] current = pages;
+        for (int p = 0; p < current.length; p++) {
+            if (current[p] == null) {
+                continue;
+            }
+            for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                int available = available(current[p].get(slot));
+                if (available != 0) {
+                    result.put(ProductCatalog.get((p << PAGE_BITS) | slot), available);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void notifyChanged(int productId, int delta) {
+        ChangeListener current = changeListener;
+        if (current != null) {
+            current.stockChanged(productId, delta);
+        }
+    }
+
+    private void notifyIncreased(int productId, int available) {
+        Listener current = listener;
+        if (current != null) {
+            current.stockIncreased(productId, available);
+        }
+    }
+
+    private AtomicLongArray page(int productId) {
+        AtomicLongArray[] current = pages;
+        int index = productId >>> PAGE_BITS;
+        return index < current.length ? current[index] : null;
+    }
+
+    private AtomicLongArray pageForWrite(int productId) {
+        AtomicLongArray page = page(productId);
+        return page != null ? page : createPage(productId >>> PAGE_BITS);
+    }
+
+    private synchronized AtomicLongArray createPage(int index) {
+        AtomicLongArray[] current = pages;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        AtomicLongArray[] grown = index < current.length
+                ? current.clone()
+                : Arrays.copyOf(current, index + 1);
+        grown[index] = new AtomicLongArray(PAGE_SIZE);
+        pages = grown;
+        return grown[index];
+    }
+
+    private static long pack(int available, int reserved) {
+        return ((long) available << 32) | (reserved & 0xFFFFFFFFL);
+    }
+
+    private static int available(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int reserved(long packed) {
+        return (int) packed;
+    }
+}
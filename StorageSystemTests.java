@@ -1,8 +1,13 @@
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.assertEquals;
 
@@ -131,4 +136,1263 @@ public class StorageSystemTests {
         keeper.calculateSalary();
 
     }
+
+    @Test
+    public void test4() {
+        // Два кладовщика и два курьера обрабатывают заказы одновременно
+        SimulationTime.setTime(LocalTime.of(8, 0));
+        EventScheduler scheduler = new EventScheduler();
+
+        Product hinkal = new Product("Хинкаль", 50.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(hinkal, 10);
+        Warehouse storage = new Warehouse(stock, new Coordinates(0, 0));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0)));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0)));
+        storage.addCourier(new Courier(LocalTime.of(8, 0), LocalTime.of(19, 0)));
+        storage.addCourier(new Courier(LocalTime.of(8, 0), LocalTime.of(19, 0)));
+        storage.attachScheduler(scheduler);
+
+        User user = new User("user@mail.com", "Abacab Abacabovich", new Coordinates(3, 4));
+        Order first = new Order(new Product[]{hinkal, hinkal}, user.getCoordinates(), storage);
+        Order second = new Order(new Product[]{hinkal, hinkal}, user.getCoordinates(), storage);
+        storage.scheduleArrival(LocalTime.of(9, 0), first);
+        storage.scheduleArrival(LocalTime.of(9, 0), second);
+
+        // Сборка 90 сек + доставка 270 сек: оба заказа доставлены к 9:06
+        scheduler.runUntil(LocalTime.of(9, 6));
+        assertEquals(first.getStatus(), Order.OrderStatus.DELIVERED);
+        assertEquals(second.getStatus(), Order.OrderStatus.DELIVERED);
+
+        scheduler.runUntil(LocalTime.of(12, 0));
+        assertEquals(SimulationTime.getCurrentTime(), LocalTime.of(12, 0));
+        assertEquals(scheduler.pendingEvents(), 0);
+        assertEquals(storage.getOrders().size(), 0);
+        assertEquals(storage.getStock().getAvailable(hinkal), 6);
+    }
+
+    @Test
+    public void test5() {
+        // Восемь независимых складов прогоняются параллельно со своими часами
+        SimulationTime.setTime(LocalTime.of(7, 0));
+        Product hinkal = new Product("Хинкаль", 50.0);
+        User user = new User("user@mail.com", "Abacab Abacabovich", new Coordinates(3, 4));
+
+        List<Warehouse> warehouses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Map<Product, Integer> stock = new HashMap<>();
+            stock.put(hinkal, 3);
+            warehouses.add(new Warehouse(stock, new Coordinates(i, 0)));
+        }
+
+        SimulationResult result = new SimulationRunner(4).run(warehouses, LocalTime.of(8, 0), LocalTime.of(18, 0),
+                (warehouse, scheduler) -> {
+                    warehouse.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0)));
+                    warehouse.addCourier(new Courier(LocalTime.of(8, 0), LocalTime.of(19, 0)));
+                    for (int i = 0; i < 3; i++) {
+                        warehouse.scheduleArrival(LocalTime.of(9, 0),
+                                new Order(new Product[]{hinkal}, user.getCoordinates(), warehouse));
+                    }
+                });
+
+        assertEquals(result.getWarehouses().size(), 8);
+        assertEquals(result.getDeliveredOrders(), 24);
+        assertEquals(result.getPendingOrders(), 0);
+        assertEquals(SimulationTime.getCurrentTime(), LocalTime.of(7, 0));
+    }
+
+    @Test
+    public void test6() {
+        // Первый поставщик не покрывает дефицит - склад добирает у следующего
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Warehouse storage = new Warehouse(new HashMap<>(), new Coordinates(0, 0));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(18, 0)));
+
+        Producer small = new Producer("Пиццерия", pizza, 3);
+        Producer big = new Producer("Пиццерия 2", pizza, 100);
+        storage.addSupplier(small);
+        storage.addSupplier(big);
+
+        User user = new User("pizza_lover@mail.com", "Пицца Фан", new Coordinates(3, 4));
+        Product[] fivePizzas = new Product[5];
+        Arrays.fill(fivePizzas, pizza);
+        user.makeOrder(fivePizzas, storage);
+        storage.completeOrders();
+
+        // Дефицит 5 + 10 в запас: 3 от первого поставщика, 12 от второго
+        assertEquals(small.getMaxCount(), 0);
+        assertEquals(big.getMaxCount(), 88);
+        assertEquals(storage.getStock().getAvailable(pizza), 15);
+    }
+
+    @Test
+    public void test7() throws InterruptedException {
+        // Поставки и сборка из разных потоков не теряют обновлений остатков
+        Product cola = new Product("Кола", 250.0);
+        StockLedger ledger = new StockLedger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    ledger.add(cola, 2);
+                    if (ledger.tryReserve(cola, 1)) {
+                        ledger.commit(cola, 1);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(ledger.getAvailable(cola), 40000);
+        assertEquals(ledger.getReserved(cola), 0);
+    }
+
+    @Test
+    public void test8() {
+        // Строки заказа хранятся по плотным идентификаторам товаров
+        Product pizza = new Product("Пицца", 750.0);
+        Product cola = new Product("Кола", 250.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(pizza, 1);
+        Warehouse storage = new Warehouse(stock, new Coordinates(0, 0));
+
+        Order order = new Order(new Product[]{pizza, cola, pizza}, new Coordinates(3, 4), storage);
+        assertEquals(order.getProducts().size(), 2);
+        assertEquals(order.getProducts().quantityOf(pizza.getId()), 2);
+        assertEquals(ProductCatalog.get(cola.getId()), cola);
+
+        // Колы нет совсем, пиццы только одна
+        assertEquals(order.removeUnavailableProducts(storage), true);
+        assertEquals(order.getProducts().size(), 1);
+        assertEquals(order.getProducts().quantityOf(pizza.getId()), 1);
+        assertEquals(order.getOriginalProducts().totalItems(), 3);
+    }
+
+    @Test
+    public void test9() {
+        // Компактные идентификаторы уникальны и сохраняют префикс типа
+        IdGenerator.setMode(IdGenerator.Mode.COMPACT);
+        try {
+            Set<String> ids = new HashSet<>();
+            for (int i = 0; i < 10000; i++) {
+                ids.add(IdGenerator.generateId(IdGenerator.ObjectType.USER));
+            }
+            assertEquals(ids.size(), 10000);
+
+            Warehouse storage = new Warehouse(new HashMap<>(), new Coordinates(0, 0));
+            Order order = new Order(new Product[0], new Coordinates(1, 1), storage);
+            assertEquals(order.getOrderId(), IdGenerator.format(order.getOrderKey()));
+            assertEquals(order.getOrderId().startsWith("OR-"), true);
+            assertEquals(storage.getId().startsWith("WH-"), true);
+        } finally {
+            IdGenerator.setMode(IdGenerator.Mode.READABLE);
+        }
+    }
+
+    @Test
+    public void test10() {
+        // Отложенные заказы ждут поставки и просыпаются по мере пополнения товара
+        SimulationTime.setTime(LocalTime.of(11, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Warehouse storage = new Warehouse(new HashMap<>(), new Coordinates(0, 0));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(18, 0)));
+        storage.addCourier(new Courier(LocalTime.of(8, 0), LocalTime.of(20, 0)));
+
+        User user = new User("pizza_lover@mail.com", "Пицца Фан", new Coordinates(3, 4));
+        for (int i = 0; i < 3; i++) {
+            user.makeOrder(new Product[]{pizza, pizza}, storage);
+        }
+        storage.completeOrders();
+        assertEquals(storage.getOrders().size(), 3);
+
+        // Четырех пицц хватает только на два заказа
+        Producer supplier = new Producer("Пиццерия", pizza, 4);
+        supplier.deliverToStorage(storage, 4);
+        storage.completeOrders();
+
+        assertEquals(storage.getDeliveredCount(), 2);
+        assertEquals(storage.getOrders().size(), 1);
+        assertEquals(storage.getStock().getAvailable(pizza), 0);
+    }
+
+    @Test
+    public void test11() {
+        // Дефицит по товару суммируется за проход и заказывается одной поставкой
+        SimulationTime.setTime(LocalTime.of(8, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Warehouse storage = new Warehouse(new HashMap<>(), new Coordinates(0, 0));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(23, 0)));
+        storage.addCourier(new Courier(LocalTime.of(8, 0), LocalTime.of(23, 0)));
+        Producer supplier = new Producer("Пиццерия", pizza, 1000);
+        storage.addSupplier(supplier);
+
+        User user = new User("pizza_lover@mail.com", "Пицца Фан", new Coordinates(0, 1));
+        for (int i = 0; i < 20; i++) {
+            user.makeOrder(new Product[]{pizza}, storage);
+        }
+        storage.completeOrders();
+        assertEquals(supplier.getMaxCount(), 1000 - 30);
+
+        storage.completeOrders();
+        assertEquals(storage.getDeliveredCount(), 20);
+        assertEquals(storage.getStock().getAvailable(pizza), 10);
+
+        // Точка перезаказа 15: остаток 9 после сборки пополняется до 15 + 5
+        storage.setReplenishmentPolicy(new ReplenishmentPolicy(15, 5));
+        user.makeOrder(new Product[]{pizza}, storage);
+        storage.completeOrders();
+        assertEquals(storage.getStock().getAvailable(pizza), 20);
+        assertEquals(supplier.getMaxCount(), 1000 - 30 - 11);
+    }
+
+    @Test
+    public void test12() throws InterruptedException {
+        // События из нескольких потоков доходят до получателя через кольцевой буфер
+        List<LogEvent> received = new ArrayList<>();
+        AsyncEventSink async = new AsyncEventSink(received::add, 64);
+        Product cola = new Product("Кола", 250.0);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    async.publish(LogEvent.ofSupply(LogEvent.Type.SUPPLY_DELIVERED, "Колер", cola, 1));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        async.close();
+
+        assertEquals(received.size(), 20000);
+        assertEquals(received.get(0).format(), "Поставщик 'Колер' доставил 1 ед. товара Кола");
+    }
+
+    @Test
+    public void test13() {
+        // Заказ уходит на ближайший склад, у которого есть товар
+        Product pizza = new Product("Пицца", 750.0);
+        OrderRouter router = new OrderRouter();
+        Random random = new Random(42);
+        List<Warehouse> warehouses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Warehouse warehouse = new Warehouse(new HashMap<>(),
+                    new Coordinates(1 + random.nextInt(100), 1 + random.nextInt(100)));
+            warehouses.add(warehouse);
+            router.addWarehouse(warehouse);
+        }
+
+        Coordinates home = new Coordinates(37, 61);
+        List<Warehouse> expected = new ArrayList<>(warehouses);
+        expected.sort(Comparator.comparingDouble(w -> home.distanceTo(w.getCoordinates())));
+        List<Warehouse> routed = new ArrayList<>();
+        router.nearest(home).forEachRemaining(routed::add);
+        assertEquals(routed.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(home.distanceTo(routed.get(i).getCoordinates()),
+                    home.distanceTo(expected.get(i).getCoordinates()), 1e-9);
+        }
+
+        // Пицца есть только на третьем по удаленности складе
+        routed.get(2).getStock().add(pizza, 1);
+        User user = new User("pizza_lover@mail.com", "Пицца Фан", home);
+        Order order = user.makeOrder(new Product[]{pizza}, router);
+        assertEquals(order.getStorage(), routed.get(2));
+
+        // Больше пиццы нет нигде - заказ уходит на ближайший склад
+        routed.get(2).getStock().tryReserve(pizza, 1);
+        assertEquals(user.makeOrder(new Product[]{pizza}, router).getStorage(), routed.get(0));
+    }
+
+    @Test
+    public void test14() {
+        // Курьер развозит несколько заказов за одну поездку
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product cola = new Product("Кола", 250.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(cola, 10);
+        Warehouse storage = new Warehouse(stock, new Coordinates(0, 0));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(18, 0)));
+        storage.addCourier(new Courier(LocalTime.of(8, 0), LocalTime.of(20, 0)));
+        storage.setCourierCapacity(4);
+
+        int[] xs = {3, 1, 4, 2};
+        List<Order> orders = new ArrayList<>();
+        for (int x : xs) {
+            User user = new User("cola@mail.com", "Кола Фан", new Coordinates(x, 0));
+            orders.add(new Order(new Product[]{cola}, user.getCoordinates(), storage));
+        }
+        assertEquals(DeliveryRoute.plan(storage.getCoordinates(), orders).getLength(), 8.0, 1e-9);
+
+        for (Order order : orders) {
+            storage.addOrder(order);
+        }
+        storage.completeOrders();
+
+        // Сборка 4 × 45 сек, затем выход 60 сек, 4 × (30 + 60) сек, возвращение 120 сек
+        assertEquals(storage.getDeliveredCount(), 4);
+        assertEquals(SimulationTime.getCurrentTime(), LocalTime.of(9, 12));
+    }
+
+    @Test
+    public void test15() {
+        // Кладовщик собирает три заказа одной волной
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Product cola = new Product("Кола", 250.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(pizza, 5);
+        stock.put(cola, 5);
+        Warehouse storage = new Warehouse(stock, new Coordinates(0, 0));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(18, 0)));
+        storage.setWaveSize(3);
+
+        User user = new User("pizza_lover@mail.com", "Пицца Фан", new Coordinates(3, 4));
+        for (int i = 0; i < 3; i++) {
+            user.makeOrder(new Product[]{pizza, cola}, storage);
+        }
+        storage.completeOrders();
+
+        // 2 ячейки × 45 сек + 6 единиц × 5 сек
+        assertEquals(SimulationTime.getCurrentTime(), LocalTime.of(9, 2));
+        assertEquals(storage.getReadyForDelivery().size(), 3);
+        assertEquals(storage.getStock().getAvailable(pizza), 2);
+        assertEquals(storage.getStock().getReserved(cola), 0);
+    }
+
+    @Test
+    public void test16() throws Exception {
+        // Потоковая загрузка заказов из CSV и воспроизведение JSONL по времени
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Product cola = new Product("Кола", 120.0);
+        Warehouse storage = new Warehouse(new HashMap<>(), new Coordinates(50, 50));
+        User anna = new User("anna@mail.ru", "Анна", new Coordinates(52, 52));
+        User oleg = new User("oleg@mail.ru", "Олег", new Coordinates(48, 51));
+        User generated = new User("user7@example.com", "Пользователь 7", new Coordinates(60, 40));
+        Map<String, User> users = new HashMap<>();
+        users.put(anna.getId(), anna);
+        users.put(oleg.getId(), oleg);
+        users.put(generated.getId(), generated);
+
+        Path csv = Files.createTempFile("orders", ".csv");
+        Path jsonl = Files.createTempFile("orders", ".jsonl");
+        try {
+            Files.write(csv, Arrays.asList(
+                    "user,product,quantity",
+                    anna.getId() + "," + pizza.getId() + ",2",
+                    anna.getId() + "," + cola.getId() + ",3",
+                    oleg.getId() + "," + pizza.getId() + ",1",
+                    anna.getId() + "," + pizza.getId() + ",1",
+                    generated.getId() + "," + cola.getId() + ",2"));
+            assertEquals(OrderStreamLoader.loadInto(csv, OrderStreamLoader.Format.CSV, users, storage), 4L);
+            List<Order> loaded = new ArrayList<>(storage.getOrders());
+            assertEquals(loaded.get(0).getProducts().quantityOf(pizza.getId()), 2);
+            assertEquals(loaded.get(0).getProducts().quantityOf(cola.getId()), 3);
+            assertEquals(loaded.get(0).getUserCoordinates(), anna.getCoordinates());
+            assertEquals(loaded.get(1).getUserCoordinates(), oleg.getCoordinates());
+            assertEquals(loaded.get(2).getProducts().totalItems(), 1);
+            // Строка пользователя, чей идентификатор начинается с "user", - не заголовок
+            assertEquals(loaded.get(3).getUserCoordinates(), generated.getCoordinates());
+
+            Warehouse timed = new Warehouse(new HashMap<>(), new Coordinates(50, 50));
+            EventScheduler scheduler = new EventScheduler();
+            timed.attachScheduler(scheduler);
+            Files.write(jsonl, Arrays.asList(
+                    "{\"user\":\"" + oleg.getId() + "\",\"product\":" + cola.getId() + ",\"quantity\":4,\"time\":\"09:10:00\"}",
+                    "{\"user\":\"" + oleg.getId() + "\",\"product\":" + pizza.getId() + ",\"quantity\":1,\"time\":\"09:10:00\"}",
+                    "{\"user\": \"" + anna.getId() + "\", \"product\": " + pizza.getId() + ", \"quantity\": 2, \"time\": \"09:30:00\"}"));
+            try (OrderStreamLoader replay = OrderStreamLoader.replayInto(jsonl, OrderStreamLoader.Format.JSONL, users, timed)) {
+                // В очереди событий только ближайший заказ, остальные еще в файле
+                assertEquals(scheduler.pendingEvents(), 1);
+                scheduler.runUntil(LocalTime.of(9, 20));
+                assertEquals(timed.getOrders().size(), 1);
+                assertEquals(timed.getOrders().iterator().next().getProducts().totalItems(), 5);
+                assertEquals(replay.getTime(), LocalTime.of(9, 30));
+            }
+            // Прогон остановлен раньше конца файла: запланированный заказ поступает,
+            // следующие из закрытого файла уже не читаются
+            scheduler.runUntil(LocalTime.of(9, 40));
+            assertEquals(timed.getOrders().size(), 2);
+            assertEquals(scheduler.pendingEvents(), 0);
+        } finally {
+            Files.delete(csv);
+            Files.delete(jsonl);
+        }
+    }
+
+    @Test
+    public void test17() throws Exception {
+        // Снимок склада посреди дня и независимые копии из него
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Product cola = new Product("Кола", 120.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(pizza, 5);
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0)));
+        storage.addCourier(new Courier(LocalTime.of(10, 0), LocalTime.of(19, 0)));
+        storage.addSupplier(new Producer("Кола-Опт", cola, 2));
+
+        Map<Product, Integer> pizzaOrder = new HashMap<>();
+        pizzaOrder.put(pizza, 2);
+        Map<Product, Integer> colaOrder = new HashMap<>();
+        colaOrder.put(cola, 3);
+        storage.addOrder(new Order(pizzaOrder, new Coordinates(53, 54), storage));
+        storage.addOrder(new Order(colaOrder, new Coordinates(47, 46), storage));
+        storage.completeOrders();
+        LocalTime checkpointTime = SimulationTime.getCurrentTime();
+
+        Path file = Files.createTempFile("warehouse", ".snap");
+        try {
+            WarehouseSnapshot.write(storage, file);
+            SimulationTime.setTime(LocalTime.of(12, 0));
+            Warehouse fork = WarehouseSnapshot.read(file);
+            Warehouse other = WarehouseSnapshot.read(file);
+
+            assertEquals(SimulationTime.getCurrentTime(), checkpointTime);
+            assertEquals(fork.getId(), storage.getId());
+            assertEquals(fork.getStock().getAvailable(pizza), 3);
+            assertEquals(fork.getStock().getAvailable(cola), 2);
+            assertEquals(fork.getSuppliers().get(0).getMaxCount(), 0);
+            assertEquals(fork.getOrders().size(), 1);
+            assertEquals(fork.getOrders().iterator().next().getOrderId(),
+                    storage.getOrders().iterator().next().getOrderId());
+            assertEquals(fork.getReadyForDelivery().peek().getOrderId(),
+                    storage.getReadyForDelivery().peek().getOrderId());
+            assertEquals(fork.getReadyForDelivery().peek().getStatus(), Order.OrderStatus.PROCESSING);
+            assertEquals(fork.getCouriers().get(0).getId(), storage.getCouriers().get(0).getId());
+
+            // Копии не влияют друг на друга и на исходный склад
+            SimulationTime.setTime(LocalTime.of(10, 0));
+            fork.completeOrders();
+            assertEquals(fork.getDeliveredCount(), 1);
+            assertEquals(other.getReadyForDelivery().size(), 1);
+            assertEquals(storage.getReadyForDelivery().size(), 1);
+
+            // Восстановленный лист ожидания просыпается от поставки
+            other.addSupplier(new Producer("Кола-Опт 2", cola, 10));
+            other.completeOrders();
+            other.completeOrders();
+            assertEquals(other.getOrders().size(), 0);
+            assertEquals(other.getStock().getAvailable(cola), 9);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void test18() throws Exception {
+        // Восстановление остатков и заказов по журналу после "падения"
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Product cola = new Product("Кола", 120.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(pizza, 5);
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0)));
+        storage.addCourier(new Courier(LocalTime.of(10, 0), LocalTime.of(19, 0)));
+        storage.addSupplier(new Producer("Кола-Опт", cola, 2));
+
+        Path file = Files.createTempFile("warehouse", ".journal");
+        WarehouseJournal journal = new WarehouseJournal(file, 4, true, 1000);
+        try {
+            storage.setJournal(journal);
+            Map<Product, Integer> pizzaOrder = new HashMap<>();
+            pizzaOrder.put(pizza, 2);
+            Map<Product, Integer> colaOrder = new HashMap<>();
+            colaOrder.put(cola, 3);
+            Order assembled = new Order(pizzaOrder, new Coordinates(53, 54), storage);
+            Order waiting = new Order(colaOrder, new Coordinates(47, 46), storage);
+            storage.addOrder(assembled);
+            storage.addOrder(waiting);
+            storage.completeOrders();
+            journal.flush();
+
+            Warehouse recovered = new Warehouse(new HashMap<>(), new Coordinates(50, 50));
+            assertEquals(WarehouseJournal.recover(file, recovered), 2);
+            assertEquals(recovered.getStock().getAvailable(pizza), 3);
+            assertEquals(recovered.getStock().getAvailable(cola), 2);
+            assertEquals(recovered.getOrders().iterator().next().getOrderId(), waiting.getOrderId());
+            assertEquals(recovered.getReadyForDelivery().peek().getOrderId(), assembled.getOrderId());
+
+            // Доставленный заказ после восстановления не возвращается
+            SimulationTime.setTime(LocalTime.of(10, 0));
+            storage.completeOrders();
+            journal.compact();
+            Warehouse compacted = new Warehouse(new HashMap<>(), new Coordinates(50, 50));
+            assertEquals(WarehouseJournal.recover(file, compacted), 1);
+            assertEquals(compacted.getReadyForDelivery().size(), 0);
+            assertEquals(compacted.getStock().getAvailable(pizza), 3);
+
+            // Прерванная на середине запись отбрасывается
+            storage.getStock().add(pizza, 4);
+            journal.flush();
+            Files.write(file, new byte[] {2, 0, 0}, StandardOpenOption.APPEND);
+            Warehouse torn = new Warehouse(new HashMap<>(), new Coordinates(50, 50));
+            assertEquals(WarehouseJournal.recover(file, torn), 1);
+            assertEquals(torn.getStock().getAvailable(pizza), 7);
+        } finally {
+            journal.close();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void test19() {
+        // Порядок обработки заказов при разных политиках очереди
+        QueuePolicy[] policies = {QueuePolicy.FIFO, QueuePolicy.DEADLINE, QueuePolicy.DISTANCE,
+                QueuePolicy.VALUE, QueuePolicy.AGE};
+        int[][] expected = {{0, 1, 2}, {2, 0, 1}, {1, 2, 0}, {2, 1, 0}, {1, 0, 2}};
+        Product pizza = new Product("Пицца", 750.0);
+        Product cola = new Product("Кола", 120.0);
+
+        for (int p = 0; p < policies.length; p++) {
+            SimulationTime.setTime(LocalTime.of(9, 0));
+            Map<Product, Integer> stock = new HashMap<>();
+            stock.put(pizza, 10);
+            stock.put(cola, 10);
+            Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+            storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0)));
+
+            SimulationTime.setTime(LocalTime.of(9, 5));
+            Order far = new Order(new Product[] {cola}, new Coordinates(90, 90), storage);
+            far.setDeadline(LocalTime.of(12, 0));
+            SimulationTime.setTime(LocalTime.of(9, 1));
+            Order near = new Order(new Product[] {cola, cola}, new Coordinates(51, 51), storage);
+            SimulationTime.setTime(LocalTime.of(9, 10));
+            Order valuable = new Order(new Product[] {pizza}, new Coordinates(60, 60), storage);
+            valuable.setDeadline(LocalTime.of(11, 0));
+            Order[] created = {far, near, valuable};
+
+            storage.addOrder(far);
+            storage.addOrder(near);
+            storage.setQueuePolicy(policies[p]);
+            storage.addOrder(valuable);
+            assertEquals(storage.getQueuePolicy(), policies[p]);
+
+            storage.completeOrders();
+            List<Order> assembled = new ArrayList<>(storage.getReadyForDelivery());
+            for (int i = 0; i < created.length; i++) {
+                assertEquals(assembled.get(i), created[expected[p][i]]);
+            }
+        }
+    }
+
+    @Test
+    public void test20() {
+        // Гистограмма задержек и метрики жизненного цикла заказа
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(histogram.getCount(), 10_000L);
+        assertEquals(Math.abs(histogram.getPercentile(50) - 5_000) <= 5_000 * 0.03, true);
+        assertEquals(Math.abs(histogram.getPercentile(99) - 9_900) <= 9_900 * 0.03, true);
+        assertEquals(histogram.getPercentile(100), 10_000L);
+        assertEquals(histogram.getMin(), 1L);
+
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Product cola = new Product("Кола", 120.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(pizza, 2);
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0)));
+        storage.addCourier(new Courier(LocalTime.of(10, 0), LocalTime.of(19, 0)));
+        storage.addSupplier(new Producer("Кола-Опт", cola, 100));
+
+        Order first = new Order(new Product[] {pizza}, new Coordinates(53, 54), storage);
+        Order second = new Order(new Product[] {cola, cola}, new Coordinates(47, 46), storage);
+        storage.addOrder(first);
+        storage.addOrder(second);
+        storage.completeOrders();
+        assertEquals(first.getAssemblyStartedAt(), LocalTime.of(9, 0));
+        assertEquals(first.getAssembledAt(), LocalTime.of(9, 0, 45));
+        assertEquals(second.getDeferredAt(), LocalTime.of(9, 0, 45));
+        assertEquals(second.getSuppliedAt(), LocalTime.of(9, 0, 45));
+
+        SimulationTime.setTime(LocalTime.of(10, 0));
+        storage.completeOrders();
+        storage.completeOrders();
+
+        WarehouseMetrics metrics = storage.getMetrics();
+        assertEquals(metrics.getOrdersReceived(), 2L);
+        assertEquals(metrics.getOrdersDeferred(), 1L);
+        assertEquals(metrics.getOrdersAssembled(), 2L);
+        assertEquals(metrics.getOrdersDelivered(), 2L);
+        assertEquals(metrics.getAssembly().getMax(), 90L);
+        assertEquals(metrics.getSupplyWait().getCount(), 1L);
+        assertEquals(metrics.getSupplierFillRate(), 1.0, 0.0);
+        assertEquals(metrics.getEndToEnd().getCount(), 2L);
+        assertEquals(WarehouseMetrics.seconds(first.getCreatedAt(), first.getDeliveredAt()),
+                metrics.getEndToEnd().getMin());
+        assertEquals(metrics.getQueueDepth().getMax(), 2L);
+
+        SimulationResult result = SimulationResult.of(storage);
+        assertEquals(result.getLatency().getCount(), 2L);
+        assertEquals(result.getReport().contains("Полный цикл"), true);
+    }
+
+    @Test
+    public void test21() {
+        // Учет занятости, заказов и пути работников в режиме событий
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(pizza, 5);
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        Warehouseman keeper = new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0));
+        Courier courier = new Courier(LocalTime.of(8, 0), LocalTime.of(16, 0));
+        storage.addStorekeeper(keeper);
+        storage.addCourier(courier);
+        EventScheduler scheduler = new EventScheduler();
+        storage.attachScheduler(scheduler);
+
+        storage.addOrder(new Order(new Product[] {pizza}, new Coordinates(53, 54), storage));
+        storage.addOrder(new Order(new Product[] {pizza}, new Coordinates(50, 60), storage));
+        scheduler.runUntil(LocalTime.of(9, 0, 10));
+        assertEquals(keeper.getStatus(), Worker.Status.BUSY);
+        assertEquals(courier.getStatus(), Worker.Status.NOT_WORKING);
+        scheduler.runUntil(LocalTime.of(9, 1, 0));
+        assertEquals(courier.getStatus(), Worker.Status.BUSY);
+
+        scheduler.runUntil(LocalTime.of(12, 0));
+        assertEquals(keeper.getStatus(), Worker.Status.NOT_WORKING);
+        assertEquals(courier.getStatus(), Worker.Status.NOT_WORKING);
+        assertEquals(keeper.getBusySeconds(), 90L);
+        assertEquals(keeper.getOrdersHandled(), 2);
+        assertEquals(courier.getBusySeconds(), 420L + 720L);
+        assertEquals(courier.getOrdersHandled(), 2);
+        assertEquals(courier.getDistanceTravelled(), 30.0, 1e-9);
+        assertEquals(courier.getIdleSeconds(), 8 * 3600L - 1140L);
+        assertEquals(courier.getCostPerOrder(), 1200.0, 1e-9);
+        assertEquals(storage.getMetrics().report(storage).contains(courier.getId()), true);
+    }
+
+    @Test
+    public void test22() throws InterruptedException {
+        // Многопоточная обработка: несколько кладовщиков и курьеров, поставки, backpressure
+        EventSink previousSink = SimulationLog.getSink();
+        SimulationLog.setSink(new NoOpEventSink());
+        try {
+            SimulationTime.setTime(LocalTime.of(9, 0));
+            Product pizza = new Product("Пицца", 750.0);
+            Product cola = new Product("Кола", 120.0);
+            Map<Product, Integer> stock = new HashMap<>();
+            stock.put(pizza, 1000);
+            Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+            storage.addSupplier(new Producer("Завод колы", cola, 1000));
+            for (int i = 0; i < 4; i++) {
+                storage.addStorekeeper(new Warehouseman(LocalTime.MIN, LocalTime.MAX));
+            }
+            for (int i = 0; i < 3; i++) {
+                storage.addCourier(new Courier(LocalTime.MIN, LocalTime.MAX));
+            }
+
+            StagedRuntime runtime = new StagedRuntime(storage, 4);
+            runtime.start(LocalTime.of(9, 0));
+            for (int i = 0; i < 200; i++) {
+                Product[] items = i % 4 == 0 ? new Product[] {pizza, cola} : new Product[] {pizza};
+                storage.addOrder(new Order(items, new Coordinates(50 + i % 7, 50 + i % 5), storage));
+            }
+            assertEquals(runtime.awaitIdle(10_000), true);
+            runtime.shutdown();
+
+            assertEquals(storage.getDeliveredCount(), 200);
+            assertEquals(storage.getMetrics().getOrdersDelivered(), 200L);
+            assertEquals(storage.getStock().getAvailable(pizza.getId()), 800);
+            int picked = 0;
+            for (Warehouseman keeper : storage.getStorekeepers()) {
+                picked += keeper.getOrdersHandled();
+            }
+            int delivered = 0;
+            for (Courier courier : storage.getCouriers()) {
+                delivered += courier.getOrdersHandled();
+            }
+            assertEquals(picked, 200);
+            assertEquals(delivered, 200);
+            assertEquals(SimulationTime.getCurrentTime().isAfter(LocalTime.of(9, 0)), true);
+
+            // Смена кладовщика закончилась: заказы остаются без исполнителя и возвращаются складу
+            Warehouse late = new Warehouse(stock, new Coordinates(0, 0));
+            late.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(9, 0)));
+            late.addCourier(new Courier(LocalTime.of(8, 0), LocalTime.of(18, 0)));
+            StagedRuntime lateRuntime = new StagedRuntime(late, 2);
+            SimulationTime.setTime(LocalTime.of(10, 0));
+            lateRuntime.start(LocalTime.of(10, 0));
+            late.addOrder(new Order(new Product[] {pizza}, new Coordinates(1, 1), late));
+            late.addOrder(new Order(new Product[] {pizza}, new Coordinates(2, 2), late));
+            assertEquals(lateRuntime.awaitIdle(10_000), true);
+            assertEquals(lateRuntime.getStranded(), 2);
+            lateRuntime.shutdown();
+            assertEquals(late.getOrders().size(), 2);
+            assertEquals(late.getDeliveredCount(), 0);
+        } finally {
+            SimulationLog.setSink(previousSink);
+        }
+    }
+
+    @Test
+    public void test23() {
+        // Оценка корзины: доступность по свободному остатку и время доставки
+        SimulationTime.setTime(LocalTime.of(12, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Product cola = new Product("Кола", 120.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(pizza, 3);
+        stock.put(cola, 10);
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        Coordinates user = new Coordinates(53, 54);
+
+        Map<Product, Integer> basket = new LinkedHashMap<>();
+        basket.put(pizza, 2);
+        basket.put(cola, 1);
+        DeliveryQuote quote = storage.quote(OrderLines.of(basket), user);
+        assertEquals(quote.isFeasible(), true);
+        assertEquals(quote.getDistance(), 5.0, 1e-9);
+        assertEquals(quote.getSeconds(), 45 * 3 + 60 + 150 + 60);
+        assertEquals(quote.getEta(), LocalTime.of(12, 0).plusSeconds(405));
+
+        // Та же корзина в другом порядке
+        Map<Product, Integer> reordered = new LinkedHashMap<>();
+        reordered.put(cola, 1);
+        reordered.put(pizza, 2);
+        assertEquals(storage.quote(OrderLines.of(reordered), new Coordinates(53, 54)).getSeconds(), quote.getSeconds());
+
+        // Зарезервированный товар недоступен для оценки, пока резерв не снят
+        assertEquals(storage.getStock().tryReserve(pizza, 2), true);
+        assertEquals(storage.quote(OrderLines.of(basket), user).isFeasible(), false);
+        assertEquals(storage.quote(OrderLines.of(basket), user).getEta(), null);
+        storage.getStock().release(pizza, 2);
+        assertEquals(storage.quote(OrderLines.of(basket), user).isFeasible(), true);
+        assertEquals(new Coordinates(1, 1).distanceTo(new Coordinates(4, 5)), 5.0, 0.0);
+    }
+
+    @Test
+    public void test24() {
+        // Генератор нагрузки: воспроизводимость, популярность по Ципфу, поток заказов по планировщику
+        LoadGenerator first = new LoadGenerator(42, 50, 20, 1.0);
+        LoadGenerator second = new LoadGenerator(42, 50, 20, 1.0);
+        assertEquals(first.getUsers().get(7).getCoordinates().toString(),
+                second.getUsers().get(7).getCoordinates().toString());
+        assertEquals(first.getCatalog()[3].getPrice(), second.getCatalog()[3].getPrice(), 0.0);
+        LocalTime a = LocalTime.of(8, 0);
+        LocalTime b = LocalTime.of(8, 0);
+        for (int i = 0; i < 100; i++) {
+            a = first.nextArrival(a);
+            b = second.nextArrival(b);
+            assertEquals(a, b);
+            assertEquals(first.nextBasket().totalItems(), second.nextBasket().totalItems());
+        }
+
+        // Самый популярный товар выбирается чаще всего
+        int[] counts = new int[20];
+        Map<Integer, Integer> rankById = new HashMap<>();
+        Product[] catalog = first.getCatalog();
+        for (int k = 0; k < catalog.length; k++) {
+            rankById.put(catalog[k].getId(), k);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            counts[rankById.get(first.nextProduct().getId())]++;
+        }
+        assertEquals(counts[0] > counts[1] && counts[1] > counts[19], true);
+        assertEquals(counts[0] / 20_000.0, first.getPopularity(0), 0.02);
+        assertEquals(LoadGenerator.intensity(16 * 3600), 1.0, 1e-9);
+        assertEquals(LoadGenerator.intensity(4 * 3600), 0.2, 1e-9);
+
+        // Поток планируется по одному заказу
+        EventSink previousSink = SimulationLog.getSink();
+        SimulationLog.setSink(new NoOpEventSink());
+        try {
+            SimulationTime.setTime(LocalTime.of(8, 0));
+            LoadGenerator generator = new LoadGenerator(7, 100, 30, 1.1);
+            generator.setPeakOrdersPerHour(120);
+            Warehouse storage = new Warehouse(generator.initialStock(10_000), new Coordinates(50, 50));
+            for (Producer producer : generator.createProducers(10_000)) {
+                storage.addSupplier(producer);
+            }
+            storage.addStorekeeper(new Warehouseman(LocalTime.MIN, LocalTime.MAX));
+            storage.addCourier(new Courier(LocalTime.MIN, LocalTime.MAX));
+            EventScheduler scheduler = new EventScheduler();
+            storage.attachScheduler(scheduler);
+            int pendingBefore = scheduler.pendingEvents();
+            generator.streamInto(storage, LocalTime.of(8, 0), LocalTime.of(10, 0));
+            assertEquals(scheduler.pendingEvents(), pendingBefore + 1);
+            scheduler.runUntil(LocalTime.of(10, 0));
+            long received = storage.getMetrics().getOrdersReceived();
+            assertEquals(received > 100 && received < 300, true);
+            scheduler.runUntil(LocalTime.of(14, 0));
+            assertEquals(storage.getMetrics().getOrdersReceived(), received);
+        } finally {
+            SimulationLog.setSink(previousSink);
+        }
+    }
+
+    @Test
+    public void test25() throws Exception {
+        // Прогон по зерну и журналу входных данных воспроизводится событие в событие
+        Product[] catalog = new Product[10];
+        for (int k = 0; k < catalog.length; k++) {
+            catalog[k] = new Product("Товар " + k, 100 + k);
+        }
+        Path log = Files.createTempFile("input", ".csv");
+        EventSink previousSink = SimulationLog.getSink();
+        try {
+            List<String> recorded = seededRun(catalog, log, true);
+            List<String> replayed = seededRun(catalog, log, false);
+            assertEquals(recorded.size() > 50, true);
+            assertEquals(replayed, recorded);
+            assertEquals(InputLog.readSeed(log), 2024L);
+
+            SimulationContext context = SimulationContext.start(5);
+            String firstId = IdGenerator.generateId(IdGenerator.ObjectType.ORDER);
+            long firstKey = IdGenerator.nextId(IdGenerator.ObjectType.ORDER);
+            SimulationContext.start(5);
+            assertEquals(IdGenerator.generateId(IdGenerator.ObjectType.ORDER), firstId);
+            assertEquals(IdGenerator.nextId(IdGenerator.ObjectType.ORDER), firstKey);
+            assertEquals(context.seedFor("load"), SimulationContext.start(5).seedFor("load"));
+            assertEquals(context.seedFor("load") != context.seedFor("routing"), true);
+        } finally {
+            IdGenerator.clearSeed();
+            SimulationLog.setSink(previousSink);
+            Files.deleteIfExists(log);
+        }
+    }
+
+    private static List<String> seededRun(Product[] catalog, Path log, boolean record) throws Exception {
+        SimulationContext context = record ? SimulationContext.start(2024) : SimulationContext.replay(log);
+        SimulationTime.setTime(LocalTime.of(8, 0));
+        LoadGenerator generator = context.loadGenerator(30, catalog, 1.0);
+        generator.setPeakOrdersPerHour(200);
+        Warehouse storage = new Warehouse(generator.initialStock(40), new Coordinates(50, 50));
+        for (Producer producer : generator.createProducers(400)) {
+            storage.addSupplier(producer);
+        }
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(20, 0)));
+        storage.addCourier(new Courier(LocalTime.of(8, 0), LocalTime.of(20, 0)));
+        storage.addCourier(new Courier(LocalTime.of(8, 0), LocalTime.of(20, 0)));
+        EventScheduler scheduler = new EventScheduler();
+        storage.attachScheduler(scheduler);
+
+        List<String> events = new ArrayList<>();
+        SimulationLog.setSink(event -> events.add(event.getTime() + " " + event.format()));
+        if (record) {
+            try (InputLog inputLog = context.openInputLog(log)) {
+                generator.setInputLog(inputLog);
+                generator.streamInto(storage, LocalTime.of(8, 0), LocalTime.of(11, 0));
+                scheduler.runUntil(LocalTime.of(11, 0));
+            }
+        } else {
+            OrderStreamLoader replay = context.replayOrders(log, generator.getUsers(), storage);
+            try {
+                scheduler.runUntil(LocalTime.of(11, 0));
+            } finally {
+                replay.close();
+            }
+        }
+        scheduler.runUntil(LocalTime.of(14, 0));
+        events.add("delivered " + storage.getDeliveredCount());
+        return events;
+    }
+
+    @Test
+    public void test26() throws Exception {
+        // Двоичная выгрузка заказов и работников записями фиксированной длины
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Product cola = new Product("Кола", 120.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(pizza, 10);
+        stock.put(cola, 1);
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        storage.setPartialOrders(true);
+        Warehouseman keeper = new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0));
+        Courier courier = new Courier(LocalTime.of(8, 0), LocalTime.of(16, 0));
+        storage.addStorekeeper(keeper);
+        storage.addCourier(courier);
+        Order first = new Order(new Product[] {pizza, pizza}, new Coordinates(53, 54), storage);
+        // Колы одна банка и поставщика нет: заказ собирается частично
+        Order second = new Order(new Product[] {pizza, cola, cola, cola}, new Coordinates(50, 60), storage);
+        storage.addOrder(first);
+        storage.addOrder(second);
+
+        Path file = Files.createTempFile("results", ".bin");
+        EventSink previousSink = SimulationLog.getSink();
+        ResultExporter exporter = new ResultExporter(file);
+        try {
+            SimulationLog.setSink(exporter);
+            storage.completeOrders();
+            exporter.writeWorkers(storage);
+        } finally {
+            SimulationLog.setSink(previousSink);
+            exporter.close();
+        }
+        assertEquals(second.isPartial(), true);
+        assertEquals(first.isPartial(), false);
+        assertEquals(exporter.getOrdersWritten(), 2L);
+        assertEquals(exporter.getWorkersWritten(), 2L);
+        assertEquals(Files.size(file), 16L + 2L * ResultExporter.ORDER_RECORD_SIZE + 2L * ResultExporter.WORKER_RECORD_SIZE);
+
+        try (BinaryInput in = new BinaryInput(file)) {
+            assertEquals(in.readInt(), ResultExporter.MAGIC);
+            assertEquals(in.readInt(), ResultExporter.VERSION);
+            assertEquals(in.readInt(), ResultExporter.ORDER_RECORD_SIZE);
+            assertEquals(in.readInt(), ResultExporter.WORKER_RECORD_SIZE);
+            for (Order order : List.of(first, second)) {
+                assertEquals(in.readByte(), ResultExporter.ORDER_RECORD);
+                assertEquals(in.readFixedString(ResultExporter.ID_WIDTH), order.getOrderId());
+                assertEquals(in.readLong(), order.getOrderKey());
+                assertEquals(in.readFixedString(ResultExporter.ID_WIDTH), storage.getId());
+                assertEquals(in.readFixedString(ResultExporter.ID_WIDTH), courier.getId());
+                assertEquals(in.readLong(), order.getCreatedAt().toNanoOfDay());
+                assertEquals(in.readLong(), -1L);
+                assertEquals(in.readLong(), -1L);
+                assertEquals(in.readLong(), order.getAssemblyStartedAt().toNanoOfDay());
+                assertEquals(in.readLong(), order.getAssembledAt().toNanoOfDay());
+                assertEquals(in.readLong(), order.getDeliveredAt().toNanoOfDay());
+                assertEquals(in.readDouble(), order == first ? 5.0 : 10.0, 1e-9);
+                assertEquals(in.readInt(), order == first ? 1 : 2);
+                assertEquals(in.readInt(), 2);
+                assertEquals(in.readInt(), order == first ? 2 : 4);
+                assertEquals(in.readByte(), (byte) Order.OrderStatus.DELIVERED.ordinal());
+                assertEquals(in.readByte(), (byte) (order == second ? 1 : 0));
+            }
+            assertEquals(in.readByte(), ResultExporter.WORKER_RECORD);
+            assertEquals(in.readFixedString(ResultExporter.ID_WIDTH), keeper.getId());
+            assertEquals(in.readByte(), (byte) 0);
+            assertEquals(in.readLong(), LocalTime.of(8, 0).toNanoOfDay());
+            assertEquals(in.readLong(), LocalTime.of(16, 0).toNanoOfDay());
+            assertEquals(in.readLong(), 180L);
+            assertEquals(in.readInt(), 2);
+            in.readDouble();
+            in.readDouble();
+            assertEquals(in.readByte(), ResultExporter.WORKER_RECORD);
+            assertEquals(in.readFixedString(ResultExporter.ID_WIDTH), courier.getId());
+            assertEquals(in.readByte(), (byte) 1);
+            in.readLong();
+            in.readLong();
+            in.readLong();
+            assertEquals(in.readInt(), 2);
+            assertEquals(in.readDouble(), courier.getDistanceTravelled(), 0.0);
+            assertEquals(in.readDouble(), (double) courier.getShiftCost(), 0.0);
+            assertEquals(in.isAtEnd(), true);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void test27() {
+        // Товар закончился между назначением заказа и началом сборки: заказ возвращается в очередь
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(pizza, 2);
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        Warehouseman keeper = new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0));
+        storage.addStorekeeper(keeper);
+        storage.addCourier(new Courier(LocalTime.of(8, 0), LocalTime.of(19, 0)));
+
+        Order order = new Order(new Product[] {pizza, pizza}, new Coordinates(53, 54), storage);
+        keeper.setCurrentOrder(order);
+        assertEquals(storage.getStock().tryReserve(pizza, 1), true);
+        keeper.completeWork();
+
+        assertEquals(keeper.getCurrentOrder(), null);
+        assertEquals(order.getStatus(), Order.OrderStatus.CREATED);
+        assertEquals(storage.getOrders().contains(order), true);
+        assertEquals(storage.getStock().getAvailable(pizza.getId()), 1);
+
+        storage.getStock().release(pizza, 1);
+        storage.completeOrders();
+        storage.completeOrders();
+        assertEquals(order.getStatus(), Order.OrderStatus.DELIVERED);
+        assertEquals(storage.getStock().getAvailable(pizza.getId()), 0);
+    }
+
+    @Test
+    public void test28() throws Exception {
+        // Компакция журнала посреди сборки в режиме событий: заказ не считается дважды
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(pizza, 5);
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0)));
+        storage.addCourier(new Courier(LocalTime.of(10, 0), LocalTime.of(19, 0)));
+        EventScheduler scheduler = new EventScheduler();
+        storage.attachScheduler(scheduler);
+
+        Path file = Files.createTempFile("warehouse", ".journal");
+        WarehouseJournal journal = new WarehouseJournal(file, 1, false, 0);
+        try {
+            storage.setJournal(journal);
+            Map<Product, Integer> pizzaOrder = new HashMap<>();
+            pizzaOrder.put(pizza, 2);
+            Order order = new Order(pizzaOrder, new Coordinates(53, 54), storage);
+            storage.addOrder(order);
+            scheduler.runUntil(LocalTime.of(9, 0, 30));
+            assertEquals(order.getStatus(), Order.OrderStatus.PROCESSING);
+            assertEquals(storage.getStock().getReserved(pizza), 2);
+            journal.compact();
+
+            Warehouse midAssembly = new Warehouse(new HashMap<>(), new Coordinates(50, 50));
+            assertEquals(WarehouseJournal.recover(file, midAssembly), 1);
+            assertEquals(midAssembly.getStock().getAvailable(pizza), 5);
+            assertEquals(midAssembly.getReadyForDelivery().size(), 0);
+            assertEquals(midAssembly.getOrders().iterator().next().getOrderId(), order.getOrderId());
+            assertEquals(midAssembly.getOrders().iterator().next().getStatus(), Order.OrderStatus.CREATED);
+
+            // Сборка завершилась после компакции: списание и статус дописаны в журнал
+            scheduler.runUntil(LocalTime.of(9, 5));
+            journal.flush();
+            Warehouse assembled = new Warehouse(new HashMap<>(), new Coordinates(50, 50));
+            assertEquals(WarehouseJournal.recover(file, assembled), 1);
+            assertEquals(assembled.getStock().getAvailable(pizza), 3);
+            assertEquals(assembled.getOrders().size(), 0);
+            assertEquals(assembled.getReadyForDelivery().peek().getOrderId(), order.getOrderId());
+
+            journal.compact();
+            Warehouse compacted = new Warehouse(new HashMap<>(), new Coordinates(50, 50));
+            assertEquals(WarehouseJournal.recover(file, compacted), 1);
+            assertEquals(compacted.getStock().getAvailable(pizza), 3);
+            assertEquals(compacted.getReadyForDelivery().size(), 1);
+        } finally {
+            journal.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void test29() throws Exception {
+        // Журнал различает заказы одного пользователя в один момент; параллельный прогон воспроизводим
+        Product[] catalog = new Product[5];
+        for (int k = 0; k < catalog.length; k++) {
+            catalog[k] = new Product("Товар " + k, 100 + k);
+        }
+        Path log = Files.createTempFile("input", ".csv");
+        try {
+            SimulationContext context = SimulationContext.start(31);
+            SimulationTime.setTime(LocalTime.of(9, 0));
+            LoadGenerator generator = context.loadGenerator(1, catalog, 1.0);
+            Warehouse storage = new Warehouse(generator.initialStock(100), new Coordinates(50, 50));
+            try (InputLog inputLog = context.openInputLog(log)) {
+                generator.setInputLog(inputLog);
+                generator.generateInto(storage, 3);
+            }
+            Map<String, User> users = new HashMap<>();
+            users.put(generator.getUsers().get(0).getId(), generator.getUsers().get(0));
+            Warehouse replayed = new Warehouse(new HashMap<>(), new Coordinates(50, 50));
+            assertEquals(OrderStreamLoader.loadInto(log, OrderStreamLoader.Format.CSV, users, replayed), 3L);
+            List<Order> original = new ArrayList<>(storage.getOrders());
+            List<Order> loaded = new ArrayList<>(replayed.getOrders());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(loaded.get(i).getProducts().totalItems(), original.get(i).getProducts().totalItems());
+            }
+
+            Map<String, List<String>> first = seededParallelIds(catalog[0]);
+            Map<String, List<String>> second = seededParallelIds(catalog[0]);
+            assertEquals(first.size(), 8);
+            assertEquals(second, first);
+        } finally {
+            IdGenerator.clearSeed();
+            Files.deleteIfExists(log);
+        }
+    }
+
+    private static Map<String, List<String>> seededParallelIds(Product product) {
+        SimulationContext.start(77);
+        SimulationTime.setTime(LocalTime.of(7, 0));
+        List<Warehouse> warehouses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Map<Product, Integer> stock = new HashMap<>();
+            stock.put(product, 3);
+            warehouses.add(new Warehouse(stock, new Coordinates(i, 0)));
+        }
+        Map<String, List<String>> ids = Collections.synchronizedMap(new TreeMap<>());
+        new SimulationRunner(4).run(warehouses, LocalTime.of(8, 0), LocalTime.of(12, 0), (warehouse, scheduler) -> {
+            Warehouseman keeper = new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0));
+            warehouse.addStorekeeper(keeper);
+            Order order = new Order(new Product[]{product}, new Coordinates(3, 4), warehouse);
+            warehouse.scheduleArrival(LocalTime.of(9, 0), order);
+            ids.put(warehouse.getId(), Arrays.asList(keeper.getId(), order.getOrderId()));
+        });
+        return ids;
+    }
+
+    @Test
+    public void test30() throws Exception {
+        // Падение посреди записи о сборке: списание и сборка восстанавливаются только вместе
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product pizza = new Product("Пицца", 750.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(pizza, 5);
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0)));
+
+        Path file = Files.createTempFile("warehouse", ".journal");
+        Path cut = Files.createTempFile("warehouse", ".cut");
+        WarehouseJournal journal = new WarehouseJournal(file, 1, false, 1000);
+        try {
+            storage.setJournal(journal);
+            Map<Product, Integer> pizzaOrder = new HashMap<>();
+            pizzaOrder.put(pizza, 2);
+            Order order = new Order(pizzaOrder, new Coordinates(53, 54), storage);
+            storage.addOrder(order);
+            journal.flush();
+            long beforeAssembly = Files.size(file);
+            storage.completeOrders();
+            journal.flush();
+            byte[] bytes = Files.readAllBytes(file);
+            assertEquals(bytes.length > beforeAssembly, true);
+
+            for (int length = (int) beforeAssembly; length <= bytes.length; length++) {
+                Files.write(cut, Arrays.copyOf(bytes, length));
+                Warehouse recovered = new Warehouse(new HashMap<>(), new Coordinates(50, 50));
+                assertEquals(WarehouseJournal.recover(cut, recovered), 1);
+                boolean assembled = length == bytes.length;
+                assertEquals(recovered.getStock().getAvailable(pizza), assembled ? 3 : 5);
+                assertEquals(recovered.getOrders().size(), assembled ? 0 : 1);
+                assertEquals(recovered.getReadyForDelivery().size(), assembled ? 1 : 0);
+            }
+
+            // Полная запись о товаре, который в журнале не описан, - повреждение, а не обрыв
+            Files.write(cut, bytes);
+            Files.write(cut, new byte[] {2, 0, 0, 0x27, 0x0F, 0, 0, 0, 1}, StandardOpenOption.APPEND);
+            boolean rejected = false;
+            try {
+                WarehouseJournal.recover(cut, new Warehouse(new HashMap<>(), new Coordinates(50, 50)));
+            } catch (IOException e) {
+                rejected = e.getMessage().contains("9999");
+            }
+            assertEquals(rejected, true);
+        } finally {
+            journal.close();
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(cut);
+        }
+    }
+
+    @Test
+    public void test31() {
+        // Частичный заказ ждет товар, у которого есть поставщик, и не ждет товар без поставщика
+        SimulationTime.setTime(LocalTime.of(9, 0));
+        Product cola = new Product("Кола", 120.0);
+        Product juice = new Product("Сок", 150.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(cola, 1);
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        storage.setPartialOrders(true);
+        storage.addStorekeeper(new Warehouseman(LocalTime.of(8, 0), LocalTime.of(16, 0)));
+        Producer juiceSupplier = new Producer("Сок-Опт", juice, 10);
+        storage.addSupplier(juiceSupplier);
+
+        Order order = new Order(new Product[] {cola, cola, cola, juice}, new Coordinates(53, 54), storage);
+        storage.addOrder(order);
+        storage.completeOrders();
+        assertEquals(order.getDeferredAt(), LocalTime.of(9, 0));
+        assertEquals(juiceSupplier.getMaxCount() < 10, true);
+
+        storage.completeOrders();
+        assertEquals(storage.getReadyForDelivery().peek(), order);
+        assertEquals(order.isPartial(), true);
+        assertEquals(order.getProducts().quantityOf(cola.getId()), 1);
+        assertEquals(order.getProducts().quantityOf(juice.getId()), 1);
+        assertEquals(storage.getStock().getAvailable(cola), 0);
+    }
+
+    @Test
+    public void test32() throws InterruptedException {
+        // Поток, ждущий места в заполненном буфере, не зависает после close()
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncEventSink async = new AsyncEventSink(event -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 4);
+        Product cola = new Product("Кола", 250.0);
+
+        async.publish(LogEvent.ofSupply(LogEvent.Type.SUPPLY_DELIVERED, "Колер", cola, 1));
+        blocked.await();
+        for (int i = 0; i < 4; i++) {
+            async.publish(LogEvent.ofSupply(LogEvent.Type.SUPPLY_DELIVERED, "Колер", cola, 1));
+        }
+
+        Thread publisher = new Thread(() ->
+                async.publish(LogEvent.ofSupply(LogEvent.Type.SUPPLY_DELIVERED, "Колер", cola, 1)));
+        publisher.start();
+        Thread.sleep(50);
+        Thread closer = new Thread(async::close);
+        closer.start();
+
+        publisher.join(2000);
+        boolean hung = publisher.isAlive();
+        release.countDown();
+        closer.join();
+        publisher.join();
+        assertEquals(hung, false);
+    }
+
+    @Test
+    public void test33() {
+        // Номер заказа фиксируется при создании события, а не при записи в фоновом потоке
+        Product cola = new Product("Кола", 250.0);
+        Map<Product, Integer> stock = new HashMap<>();
+        stock.put(cola, 5);
+        Warehouse storage = new Warehouse(stock, new Coordinates(50, 50));
+        Order order = new Order(new Product[] {cola}, new Coordinates(51, 51), storage);
+
+        List<LogEvent> received = new ArrayList<>();
+        AsyncEventSink async = new AsyncEventSink(received::add, 8);
+        LogEvent event = LogEvent.ofOrder(LogEvent.Type.ORDER_ASSEMBLED, order);
+        assertEquals(event.getOrderId(), order.getOrderId());
+        async.publish(event);
+        async.close();
+
+        assertEquals(received.get(0).format(), "Заказ " + order.getOrderId() + " собран и готов к доставке");
+        assertEquals(LogEvent.ofSupply(LogEvent.Type.SUPPLY_EMPTY, "Колер", cola, 0).getOrderId(), null);
+    }
+
+    @Test
+    public void test34() throws InterruptedException {
+        // Геттеры метрик отдают копии гистограмм, а не живые объекты
+        WarehouseMetrics metrics = new WarehouseMetrics();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    metrics.queueDepth(i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Histogram snapshot = metrics.getQueueDepth();
+        metrics.queueDepth(5);
+        snapshot.record(1_000_000);
+        assertEquals(snapshot.getCount(), 40001L);
+        assertEquals(metrics.getQueueDepth().getCount(), 40001L);
+        assertEquals(metrics.getQueueDepth().getMax(), 9999L);
+    }
 }
\ No newline at end of file
@@ -1,3 +1,5 @@
+import java.util.Map;
+
 /**
  * Класс Пользователь (User)
  *
@@ -48,4 +50,23 @@ public class User {
         Order order = new Order(products, this.coordinates, storage);
         storage.addOrder(order);
     }
-}
\ No newline at end of file
+
+    /**
+     * Создание нового заказа по количеству каждого товара
+     * @param quantities количество каждого товара
+     * @param storage целевой склад обработки
+     */
+    public void makeOrder(Map<Product, Integer> quantities, Warehouse storage) {
+        storage.addOrder(new Order(quantities, this.coordinates, storage));
+    }
+
+    /**
+     * Создание нового заказа на ближайшем складе, который может его выполнить
+     * @param products список товаров
+     * @param router маршрутизатор заказов
+     * @return созданный заказ или null, если складов нет
+     */
+    public Order makeOrder(Product[] products, OrderRouter router) {
+        return router.route(OrderLines.of(products), this.coordinates);
+    }
+}
\ No newline at end of file
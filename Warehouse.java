@@ -1,9 +1,17 @@
+import java.time.LocalTime;
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Класс Склад (Warehouse)
@@ -14,22 +22,43 @@ import java.util.Queue;
 public class Warehouse {
     private final String id;                    // Уникальный идентификатор склада
     private final Coordinates coordinates;      // Географические координаты склада
-    private final Map<Product, Integer> stock;  // Товарные запасы: товар → количество
+    private final StockLedger stock;            // Товарные запасы: товар → количество
 
     private final List<Producer> suppliers = new ArrayList<>();      // Список поставщиков
-    private final List<Warehouseman> storekeepers = new ArrayList<>(); // Работающие кладовщики
-    private final List<Courier> couriers = new ArrayList<>();        // Работающие курьеры
-    private final Queue<Order> orders = new LinkedList<>();          // Очередь заказов на обработку
+    private final Map<Product, Deque<Producer>> supplierIndex = new HashMap<>(); // Товар → поставщики с остатком
+    private final WorkerPool<Warehouseman> storekeepers = new WorkerPool<>(); // Кладовщики склада
+    private final WorkerPool<Courier> couriers = new WorkerPool<>();          // Курьеры склада
+    private Queue<Order> orders = new LinkedList<>();                // Очередь заказов на обработку
+    private QueuePolicy queuePolicy = QueuePolicy.FIFO;              // Порядок проверки заказов
+    private final Queue<Order> readyForDelivery = new LinkedList<>(); // Собранные заказы, ожидающие курьера
+    private final Map<Product, Deque<Order>> waitLists = new HashMap<>(); // Товар → заказы, ожидающие поставки
+    private int waitingCount;           // Количество заказов в листах ожидания
+    private ReplenishmentPolicy replenishmentPolicy = ReplenishmentPolicy.DEFAULT; // Политика пополнения
+    private int courierCapacity = 1;    // Сколько заказов курьер берет за поездку
+    private int waveSize = 1;           // Сколько заказов кладовщик собирает за одну волну
+    private boolean partialOrders;      // Собирать из остатка заказы с товаром без поставщика
+
+    private EventScheduler scheduler;   // Планировщик событий (null - пошаговый режим)
+    private boolean dispatchScheduled;  // Событие распределения заказов уже запланировано
+    private final AtomicInteger deliveredCount = new AtomicInteger(); // Количество доставленных заказов
+    private StagedRuntime runtime;      // Многопоточный режим (null - пошаговый или событийный)
+    private WarehouseJournal journal;   // Журнал изменений (null - без журнала)
+    private final WarehouseMetrics metrics = new WarehouseMetrics(); // Задержки и счетчики
 
     /**
      * Конструктор склада
-     * @param stock начальные товарные запасы
+     * @param stock начальные товарные запасы (копируются в складской учет)
      * @param coordinates географическое положение
      */
     public Warehouse(Map<Product, Integer> stock, Coordinates coordinates) {
-        this.id = IdGenerator.generateId(IdGenerator.ObjectType.WAREHOUSE);
-        this.stock = stock;
+        this(IdGenerator.generateId(IdGenerator.ObjectType.WAREHOUSE), stock, coordinates);
+    }
+
+    Warehouse(String id, Map<Product, Integer> stock, Coordinates coordinates) {
+        this.id = id;
+        this.stock = new StockLedger(stock);
         this.coordinates = coordinates;
+        this.stock.setListener(this::stockIncreased);
     }
 
     // Геттеры
@@ -37,7 +66,7 @@ public class Warehouse {
         return id;
     }
 
-    public Map<Product, Integer> getStock() {
+    public StockLedger getStock() {
         return stock;
     }
 
@@ -45,57 +74,325 @@ public class Warehouse {
         return coordinates;
     }
 
-    public Queue<Order> getOrders() {
-        return orders;
+    /**
+     * Получить все необработанные заказы: очередь проверки и листы ожидания поставки
+     * @return представление только для чтения
+     */
+    public Collection<Order> getOrders() {
+        return new AbstractCollection<Order>() {
+            @Override
+            public Iterator<Order> iterator() {
+                List<Order> all = new ArrayList<>(orders);
+                for (Deque<Order> waiting : waitLists.values()) {
+                    all.addAll(waiting);
+                }
+                return Collections.unmodifiableList(all).iterator();
+            }
+
+            @Override
+            public int size() {
+                return orders.size() + waitingCount;
+            }
+        };
+    }
+
+    public Queue<Order> getReadyForDelivery() {
+        return readyForDelivery;
+    }
+
+    public EventScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public int getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    public List<Producer> getSuppliers() {
+        return Collections.unmodifiableList(suppliers);
+    }
+
+    public List<Warehouseman> getStorekeepers() {
+        return storekeepers.getWorkers();
+    }
+
+    public List<Courier> getCouriers() {
+        return couriers.getWorkers();
+    }
+
+    public ReplenishmentPolicy getReplenishmentPolicy() {
+        return replenishmentPolicy;
+    }
+
+    public WarehouseMetrics getMetrics() {
+        return metrics;
+    }
+
+    public QueuePolicy getQueuePolicy() {
+        return queuePolicy;
+    }
+
+    public int getCourierCapacity() {
+        return courierCapacity;
+    }
+
+    public int getWaveSize() {
+        return waveSize;
+    }
+
+    public boolean isPartialOrders() {
+        return partialOrders;
     }
 
     // Методы добавления персонала
     public void addCourier(Courier courier) {
         couriers.add(courier);
+        scheduleShiftStart(courier);
     }
 
     public void addSupplier(Producer supplier) {
         suppliers.add(supplier);
+        if (supplier.getMaxCount() > 0) {
+            supplierIndex.computeIfAbsent(supplier.getProduct(), p -> new ArrayDeque<>()).add(supplier);
+            wakeAll(supplier.getProduct());
+        }
     }
 
     public void addStorekeeper(Warehouseman storekeeper) {
         storekeepers.add(storekeeper);
+        scheduleShiftStart(storekeeper);
+    }
+
+    public void setReplenishmentPolicy(ReplenishmentPolicy replenishmentPolicy) {
+        this.replenishmentPolicy = replenishmentPolicy;
+    }
+
+    /**
+     * Установить политику очереди заказов
+     *
+     * Заказы, уже стоящие в очереди, переносятся в новую очередь в текущем порядке.
+     * Для FIFO используется обычная очередь, для остальных политик - куча OrderQueue.
+     *
+     * @param queuePolicy политика упорядочивания заказов
+     */
+    public void setQueuePolicy(QueuePolicy queuePolicy) {
+        Queue<Order> queue = queuePolicy == QueuePolicy.FIFO ? new LinkedList<>() : new OrderQueue(queuePolicy);
+        Order order;
+        while ((order = orders.poll()) != null) {
+            order.queueSequence = 0;
+            queue.offer(order);
+        }
+        this.orders = queue;
+        this.queuePolicy = queuePolicy;
+    }
+
+    /**
+     * Установить вместимость курьера
+     *
+     * При вместимости больше 1 курьер забирает за поездку до capacity собранных
+     * заказов, а порядок объезда строится DeliveryRoute. В пошаговом режиме
+     * заказы, собранные за проход completeOrders, распределяются в конце прохода.
+     *
+     * @param courierCapacity максимальное число заказов за поездку
+     */
+    public void setCourierCapacity(int courierCapacity) {
+        this.courierCapacity = Math.max(1, courierCapacity);
+    }
+
+    /**
+     * Установить размер волны сборки
+     *
+     * При размере больше 1 готовые к сборке заказы копятся за проход
+     * completeOrders и передаются одному кладовщику группой (см. Warehouseman.setWave).
+     *
+     * @param waveSize максимальное число заказов в волне
+     */
+    public void setWaveSize(int waveSize) {
+        this.waveSize = Math.max(1, waveSize);
+    }
+
+    /**
+     * Разрешить частичное выполнение заказов
+     *
+     * Если заказу не хватает товара, который некому поставить, заказ не ждет
+     * этот товар: такие строки уменьшаются до свободного остатка или удаляются
+     * (Order.removeUnavailableProducts), и заказ помечается частичным. Товар,
+     * у которого поставщик есть, по-прежнему заказывается, и заказ ждет его
+     * в листе ожидания. Действует в пошаговом и событийном режимах.
+     *
+     * @param partialOrders true - собирать такие заказы из остатка
+     */
+    public void setPartialOrders(boolean partialOrders) {
+        this.partialOrders = partialOrders;
+    }
+
+    /**
+     * Подключить склад к планировщику событий
+     *
+     * После подключения сборка и доставка не сдвигают часы симуляции напрямую,
+     * а планируются как события. Начало смены каждого работника также
+     * становится событием, при котором склад распределяет ожидающие заказы.
+     *
+     * @param scheduler планировщик событий
+     */
+    public void attachScheduler(EventScheduler scheduler) {
+        if (runtime != null) {
+            throw new IllegalStateException("Склад " + id + " обрабатывает заказы в многопоточном режиме");
+        }
+        this.scheduler = scheduler;
+        for (Warehouseman keeper : storekeepers.getWorkers()) {
+            scheduleShiftStart(keeper);
+        }
+        for (Courier courier : couriers.getWorkers()) {
+            scheduleShiftStart(courier);
+        }
+    }
+
+    /**
+     * Подключить журнал изменений склада
+     *
+     * Журнал сразу записывает текущее состояние склада, затем получает
+     * изменения остатков и статусов заказов. Подключать между проходами.
+     *
+     * @param journal журнал или null, чтобы отключить журналирование
+     */
+    public void setJournal(WarehouseJournal journal) {
+        this.journal = journal;
+        if (journal == null) {
+            stock.setChangeListener(null);
+        } else {
+            journal.attach(this);
+            stock.setChangeListener(journal::stockChanged);
+        }
     }
 
     /**
      * Добавить заказ в очередь обработки
+     * В режиме событий сразу планирует распределение заказов,
+     * в многопоточном режиме передает заказ на вход StagedRuntime
+     * (вызывающий поток ждет, если входная очередь заполнена)
      * @param order новый заказ
      */
     public void addOrder(Order order) {
+        metrics.orderReceived();
+        if (journal != null) {
+            journal.orderAdded(order);
+        }
+        if (runtime != null) {
+            runtime.accept(order);
+            return;
+        }
         orders.offer(order);
+        if (scheduler != null) {
+            requestDispatch();
+        }
     }
 
     /**
-     * Обработать все заказы в очереди
+     * Проверить, хватает ли свободного остатка на все строки заказа
+     * @param lines строки заказа
+     * @return true если заказ можно собрать без поставки
+     */
+    public boolean canFulfil(OrderLines lines) {
+        for (int line = 0; line < lines.size(); line++) {
+            if (stock.getAvailable(lines.productId(line)) < lines.quantity(line)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Оценить корзину без создания заказа: хватает ли товара и когда ее доставят
+     *
+     * Ничего не кешируется: проверка остатков читает свободное количество
+     * по строкам корзины (как canFulfil), а расстояние считается заново -
+     * и то и другое дешевле поиска в кеше. Кеш проверки по версиям учета
+     * (общей или по товарам) тоже не нужен: сверка версий читает столько же
+     * ячеек, сколько сама проверка, а общий счетчик замедляет каждое изменение
+     * остатка. Поэтому кеши оценок, о которых просили, намеренно не сделаны.
+     *
+     * @param lines состав корзины
+     * @param userCoordinates координаты пользователя
+     * @return оценка на текущий момент симуляции
+     */
+    public DeliveryQuote quote(OrderLines lines, Coordinates userCoordinates) {
+        double distance = coordinates.distanceTo(userCoordinates);
+        if (!canFulfil(lines)) {
+            return new DeliveryQuote(false, distance, 0, null);
+        }
+        // Сборка (45 сек/ед.) + выход со склада + дорога (30 сек/у.е.) + выдача
+        int seconds = 45 * lines.totalItems() + 60 + (int) (distance * 30) + 60;
+        return new DeliveryQuote(true, distance, seconds, SimulationTime.getCurrentTime().plusSeconds(seconds));
+    }
+
+    /**
+     * Запланировать поступление заказа на указанное время
+     * @param time время поступления
+     * @param order заказ
+     */
+    public void scheduleArrival(LocalTime time, Order order) {
+        if (scheduler == null) {
+            throw new IllegalStateException("Склад " + id + " не подключен к планировщику событий");
+        }
+        scheduler.schedule(time, () -> addOrder(order));
+    }
+
+    /**
+     * Обработать заказы, ожидающие проверки
      *
      * Алгоритм:
      * 1. Проверяет наличие товаров для каждого заказа
-     * 2. При нехватке - заказывает поставку и откладывает заказ
+     * 2. При нехватке - ставит заказ в лист ожидания первого недостающего товара
+     *    и учитывает его спрос на недостающие товары
      * 3. При наличии - запускает обработку
-     * 4. Необработанные заказы возвращаются в очередь
+     * 4. Заказы без свободного кладовщика возвращаются в очередь
+     * 5. По итогам прохода заказывает поставку один раз на товар (replenish)
+     *
+     * Отложенные заказы не проверяются повторно на каждом проходе: они
+     * возвращаются в очередь, только когда пополняется ожидаемый товар.
+     * Заказы, разбуженные поставкой во время прохода, проверяются на следующем.
+     *
+     * Перед разбором очереди собранные заказы передаются свободным курьерам.
+     * В режиме событий разбор прекращается, когда не осталось свободных кладовщиков.
      */
     public void completeOrders() {
+        if (runtime != null) {
+            throw new IllegalStateException("Склад " + id + " обрабатывает заказы в многопоточном режиме");
+        }
+        metrics.queueDepth(orders.size() + waitingCount);
+        dispatchCouriers();
+
         Queue<Order> pendingOrders = new LinkedList<>();
-        List<Order> incompleteOrders = new ArrayList<>();
+        IntIntMap demand = new IntIntMap();  // Товар → спрос отложенных заказов за проход
+        List<Order> wave = new ArrayList<>(waveSize);
+        int toCheck = orders.size();
 
-        while (!orders.isEmpty()) {
+        while (toCheck-- > 0) {
+            if (scheduler != null && !storekeepers.hasAvailable()) {
+                break;
+            }
             Order order = orders.poll();
             boolean needSupply = false;
             boolean missingSupplier = false;
 
-            for (Map.Entry<Product, Integer> entry : order.getOriginalProducts().entrySet()) {
-                Product p = entry.getKey();
-                int required = entry.getValue();
-                int available = stock.getOrDefault(p, 0);
+            OrderLines lines = order.getOriginalProducts();
+            for (int line = 0; line < lines.size(); line++) {
+                int required = lines.quantity(line);
+                int available = stock.getAvailable(lines.productId(line));
 
                 if (available < required) {
-                    int deficit = required - available;
-                    if (!requestSupply(p, deficit + 10)) {
+                    boolean supplied = hasSupplier(lines.product(line));
+                    if (!supplied && partialOrders) {
+                        continue;  // Товар некому поставить: заказ соберется из остатка
+                    }
+                    if (!needSupply) {
+                        park(order, lines.product(line));
+                        order.markDeferred();
+                        metrics.orderDeferred();
+                    }
+                    demand.addTo(lines.productId(line), required);
+                    if (!supplied) {
                         missingSupplier = true;
                     }
                     needSupply = true;
@@ -103,84 +400,436 @@ public class Warehouse {
             }
 
             if (missingSupplier) {
-                System.out.println("🚫 Заказ " + order.getOrderId() +
-                        " неполный: отсутствуют поставщики для некоторых товаров");
-                pendingOrders.offer(order);
+                SimulationLog.order(LogEvent.Type.ORDER_WITHOUT_SUPPLIER, order);
             } else if (needSupply) {
-                System.out.println("⏳ Заказ " + order.getOrderId() +
-                        " отложен: ожидается поставка товаров");
-                pendingOrders.offer(order);
+                SimulationLog.order(LogEvent.Type.ORDER_DEFERRED, order);
             } else {
                 if (order.removeUnavailableProducts(this)) {
-                    processOrder(order);
+                    wave.add(order);
+                    if (wave.size() == waveSize) {
+                        launchWave(wave, pendingOrders, demand);
+                        wave = new ArrayList<>(waveSize);
+                    }
                 } else {
-                    System.out.println("Заказ " + order.getOrderId() +
-                            " отменен: товары отсутствуют");
+                    SimulationLog.order(LogEvent.Type.ORDER_CANCELLED, order);
                 }
             }
         }
 
+        if (!wave.isEmpty()) {
+            launchWave(wave, pendingOrders, demand);
+        }
         orders.addAll(pendingOrders);
+        replenish(demand);
+        dispatchCouriers();
+        if (journal != null) {
+            journal.checkpoint();
+        }
+    }
+
+    /**
+     * Поставить заказ в лист ожидания товара
+     * @param order отложенный заказ
+     * @param product недостающий товар
+     */
+    private void park(Order order, Product product) {
+        waitLists.computeIfAbsent(product, p -> new ArrayDeque<>()).offer(order);
+        waitingCount++;
+    }
+
+    /**
+     * Разбудить заказы, ожидающие пополненного товара
+     *
+     * Заказы возвращаются в очередь проверки в порядке ожидания,
+     * пока их суммарная потребность в товаре покрывается свободным остатком.
+     *
+     * @param productId пополненный товар
+     * @param available свободный остаток после пополнения
+     */
+    private void stockIncreased(int productId, int available) {
+        if (runtime != null) {
+            runtime.stockIncreased(productId);
+            return;
+        }
+        Deque<Order> waiting = waitLists.get(ProductCatalog.get(productId));
+        if (waiting == null || waiting.isEmpty()) {
+            return;
+        }
+        int budget = available;
+        while (!waiting.isEmpty()) {
+            int required = waiting.peekFirst().getOriginalProducts().quantityOf(productId);
+            if (required > budget) {
+                break;
+            }
+            budget -= required;
+            supplied(waiting.pollFirst());
+            waitingCount--;
+        }
+        if (scheduler != null) {
+            requestDispatch();
+        }
+    }
+
+    /**
+     * Вернуть отложенный заказ в очередь проверки после поставки
+     * @param order разбуженный заказ
+     */
+    private void supplied(Order order) {
+        order.markSupplied();
+        metrics.orderSupplied(order);
+        orders.offer(order);
+    }
 
-        if (!incompleteOrders.isEmpty()) {
-            System.out.println("\n=== НЕПОЛНЫЕ ЗАКАЗЫ ТРЕБУЮТ ВНИМАНИЯ ===");
-            for (Order order : incompleteOrders) {
-                System.out.println("🛒 Заказ " + order.getOrderId() +
-                        " имеет товары без поставщиков");
+    /**
+     * Вернуть в очередь проверки все заказы, ожидающие товара
+     * @param product товар
+     */
+    private void wakeAll(Product product) {
+        if (runtime != null) {
+            runtime.supplierAdded(product.getId());
+            return;
+        }
+        Deque<Order> waiting = waitLists.get(product);
+        if (waiting == null || waiting.isEmpty()) {
+            return;
+        }
+        waitingCount -= waiting.size();
+        while (!waiting.isEmpty()) {
+            supplied(waiting.pollFirst());
+        }
+        if (scheduler != null) {
+            requestDispatch();
+        }
+    }
+
+    /**
+     * Заказать поставки по итогам прохода
+     *
+     * Для каждого товара, которого не хватило отложенным заказам или который
+     * был собран за проход, объем рассчитывается политикой пополнения,
+     * и поставка запрашивается один раз, а не на каждый заказ.
+     *
+     * @param demand товар → спрос отложенных заказов
+     */
+    private void replenish(IntIntMap demand) {
+        demand.forEach((productId, required) -> {
+            int amount = replenishmentPolicy.orderQuantity(stock.getAvailable(productId), required);
+            if (amount > 0) {
+                requestSupply(ProductCatalog.get(productId), amount);
             }
+        });
+    }
+
+    /**
+     * Проверить, есть ли у товара поставщик с остатком
+     * @param product товар
+     * @return true если поставку можно запросить
+     */
+    private boolean hasSupplier(Product product) {
+        Deque<Producer> candidates = supplierIndex.get(product);
+        if (candidates == null) {
+            return false;
         }
+        evictDrySuppliers(candidates);
+        return !candidates.isEmpty();
     }
 
     /**
      * Запросить поставку товара
      *
      * При нехватке товара на складе:
-     * 1. Ищет подходящего поставщика
-     * 2. Инициирует доставку
+     * 1. Берет поставщиков товара из индекса в порядке регистрации
+     * 2. Исключает из индекса поставщиков, у которых закончился товар
+     * 3. Если первый поставщик не покрыл объем, добирает у следующих
      *
      * @param product требуемый товар
      * @param requestedAmount необходимое количество
-     * @return true если поставщик найден и доставка запрошена
+     * @return true если нашелся поставщик с остатком и доставка запрошена
      */
     private boolean requestSupply(Product product, int requestedAmount) {
-        for (Producer supplier : suppliers) {
-            if (supplier.getProduct().equals(product)) {
-                supplier.deliverToStorage(this, requestedAmount);
-                return true;
+        if (!hasSupplier(product)) {
+            SimulationLog.product(LogEvent.Type.NO_SUPPLIER, null, product);
+            metrics.supplyRequested(requestedAmount, 0);
+            return false;
+        }
+
+        Deque<Producer> candidates = supplierIndex.get(product);
+        int remaining = requestedAmount;
+        while (remaining > 0 && !candidates.isEmpty()) {
+            remaining -= candidates.peekFirst().deliverToStorage(this, remaining);
+            evictDrySuppliers(candidates);
+        }
+        metrics.supplyRequested(requestedAmount, requestedAmount - remaining);
+        return true;
+    }
+
+    private static void evictDrySuppliers(Deque<Producer> candidates) {
+        while (!candidates.isEmpty() && candidates.peekFirst().getMaxCount() == 0) {
+            candidates.pollFirst();
+        }
+    }
+
+    /**
+     * Передать волну заказов на сборку
+     * Если свободного кладовщика нет, заказы волны возвращаются в очередь
+     * @param wave заказы, готовые к сборке
+     * @param pendingOrders заказы, которые вернутся в очередь после прохода
+     * @param demand товар → спрос за проход (собранные товары проверяются на точку перезаказа)
+     */
+    private void launchWave(List<Order> wave, Queue<Order> pendingOrders, IntIntMap demand) {
+        if (!processWave(wave)) {
+            pendingOrders.addAll(wave);
+            return;
+        }
+        for (Order order : wave) {
+            OrderLines picked = order.getProducts();
+            for (int line = 0; line < picked.size(); line++) {
+                demand.addTo(picked.productId(line), 0);
             }
         }
-        System.out.println("⚠️ ВНИМАНИЕ: Для товара '" + product.getName() +
-                "' нет зарегистрированных поставщиков!");
-        return false;
     }
 
     /**
-     * Обработать заказ
+     * Обработать волну заказов
      *
-     * 1. Находит свободного кладовщика для сборки
-     * 2. После сборки передает заказ курьеру
+     * Находит свободного кладовщика и передает ему заказ (или группу заказов) на сборку.
+     * Собранный заказ возвращается на склад через orderAssembled.
      *
-     * @param order заказ для обработки
+     * @param wave заказы для обработки
+     * @return false если свободных кладовщиков нет
      */
-    private void processOrder(Order order) {
-        // Поиск свободного кладовщика
-        for (Warehouseman keeper : storekeepers) {
-            if (keeper.isWorking() && keeper.getCurrentOrder() == null) {
-                keeper.setCurrentOrder(order);
-                keeper.completeWork();
-                break;
+    private boolean processWave(List<Order> wave) {
+        Warehouseman keeper = storekeepers.acquire();
+        if (keeper == null) {
+            return false;
+        }
+        if (wave.size() == 1) {
+            keeper.setCurrentOrder(wave.get(0));
+        } else {
+            keeper.setWave(wave);
+        }
+        keeper.completeWork();
+        return true;
+    }
+
+    /**
+     * Вернуть кладовщика в пул свободных после сборки или ее отмены
+     * @param keeper освободившийся кладовщик
+     */
+    void storekeeperReleased(Warehouseman keeper) {
+        if (runtime != null) {
+            return;  // Кладовщик сам берет следующую работу в своем потоке
+        }
+        storekeepers.release(keeper);
+    }
+
+    /**
+     * Списать товар, которым собраны заказы
+     *
+     * Если склад ведет журнал, списание и сборка заказов записываются одной
+     * записью: после падения не может оказаться, что товар уже списан,
+     * а заказ все еще ждет сборки (и спишется повторно).
+     *
+     * @param picked списываемые строки (заказа или всей волны)
+     * @param assembled заказы, собранные этим товаром
+     */
+    void commitAssembly(OrderLines picked, List<Order> assembled) {
+        if (journal == null) {
+            stock.commitAll(picked);
+            return;
+        }
+        stock.commitAllSilently(picked);
+        journal.assemblyCommitted(picked, assembled);
+    }
+
+    /**
+     * Принять собранный заказ и передать его курьеру
+     * В пошаговом режиме курьер ищется сразу (при поездках по нескольку заказов -
+     * в конце прохода), в режиме событий - через событие распределения
+     * @param order собранный заказ
+     */
+    void orderAssembled(Order order) {
+        order.markAssembled();
+        metrics.orderAssembled(order);
+        if (runtime != null) {
+            runtime.assembled(order);
+            return;
+        }
+        readyForDelivery.offer(order);
+        if (scheduler == null) {
+            if (courierCapacity == 1) {
+                dispatchCouriers();
             }
+        } else {
+            requestDispatch();
         }
+    }
 
-        // Поиск курьера для собранного заказа
-        if (order.getStatus() == Order.OrderStatus.PROCESSING) {
-            for (Courier courier : couriers) {
-                if (courier.isWorking() && courier.getCurrentOrder() == null) {
-                    courier.setCurrentOrder(order);
-                    courier.completeWork();
-                    break;
+    /**
+     * Вернуть в очередь заказ, сборку которого пришлось прервать
+     * (в отличие от addOrder не считается новым поступлением)
+     * @param order заказ
+     */
+    void requeue(Order order) {
+        if (runtime != null) {
+            runtime.requeue(order);
+            return;
+        }
+        orders.offer(order);
+        if (scheduler != null) {
+            requestDispatch();
+        }
+    }
+
+    /**
+     * Отметить доставку заказа пользователю
+     * @param order доставленный заказ
+     */
+    void orderDelivered(Order order) {
+        deliveredCount.incrementAndGet();
+        order.markDelivered();
+        metrics.orderDelivered(order);
+        if (journal != null) {
+            journal.orderStatusChanged(order);
+        }
+        if (runtime != null) {
+            runtime.delivered(order);
+        }
+    }
+
+    /**
+     * Подключить или отключить многопоточный режим (см. StagedRuntime)
+     * @param runtime среда выполнения или null
+     */
+    void setRuntime(StagedRuntime runtime) {
+        if (runtime != null && (scheduler != null || this.runtime != null)) {
+            throw new IllegalStateException("Склад " + id + " уже работает в режиме событий или многопоточном режиме");
+        }
+        this.runtime = runtime;
+    }
+
+    /**
+     * Запросить поставку недостающих товаров одного отложенного заказа
+     * Используется стадией проверки остатков StagedRuntime
+     * @param order заказ, которому не хватает товара
+     */
+    void requestSupplyFor(Order order) {
+        IntIntMap demand = new IntIntMap();
+        boolean missingSupplier = false;
+        OrderLines lines = order.getOriginalProducts();
+        for (int line = 0; line < lines.size(); line++) {
+            if (stock.getAvailable(lines.productId(line)) < lines.quantity(line)) {
+                demand.addTo(lines.productId(line), lines.quantity(line));
+                if (!hasSupplier(lines.product(line))) {
+                    missingSupplier = true;
                 }
             }
         }
+        SimulationLog.order(missingSupplier ? LogEvent.Type.ORDER_WITHOUT_SUPPLIER : LogEvent.Type.ORDER_DEFERRED, order);
+        replenish(demand);
+    }
+
+    /**
+     * Проверить, что ни один работник не занят заказом (можно снимать снимок)
+     * @return true если все кладовщики и курьеры свободны
+     */
+    boolean isQuiescent() {
+        return storekeepers.allIdle() && couriers.allIdle();
+    }
+
+    /**
+     * Очередь заказов, ожидающих проверки (для WarehouseSnapshot)
+     */
+    Queue<Order> queuedOrders() {
+        return orders;
+    }
+
+    /**
+     * Листы ожидания поставки (для WarehouseSnapshot)
+     */
+    Map<Product, Deque<Order>> waitLists() {
+        return waitLists;
+    }
+
+    /**
+     * Восстановить заказ в листе ожидания товара
+     * @param product ожидаемый товар
+     * @param order заказ
+     */
+    void restoreWaiting(Product product, Order order) {
+        park(order, product);
+    }
+
+    /**
+     * Забрать все листы ожидания (для StagedRuntime, который ведет их сам)
+     * @return товар → ожидающие заказы; листы склада после вызова пусты
+     */
+    Map<Product, Deque<Order>> takeWaitLists() {
+        Map<Product, Deque<Order>> taken = new HashMap<>(waitLists);
+        waitLists.clear();
+        waitingCount = 0;
+        return taken;
+    }
+
+    void restoreDeliveredCount(int deliveredCount) {
+        this.deliveredCount.set(deliveredCount);
+    }
+
+    /**
+     * Отметить возвращение курьера на склад и вернуть его в пул свободных
+     * @param courier вернувшийся курьер
+     */
+    void courierReturned(Courier courier) {
+        if (runtime != null) {
+            return;  // Курьер сам берет следующую поездку в своем потоке
+        }
+        couriers.release(courier);
+        if (scheduler != null) {
+            requestDispatch();
+        }
+    }
+
+    /**
+     * Передать собранные заказы свободным курьерам
+     * Каждый курьер забирает до courierCapacity заказов за поездку
+     */
+    private void dispatchCouriers() {
+        while (!readyForDelivery.isEmpty()) {
+            Courier courier = couriers.acquire();
+            if (courier == null) {
+                return;
+            }
+            if (courierCapacity == 1) {
+                courier.setCurrentOrder(readyForDelivery.poll());
+            } else {
+                List<Order> trip = new ArrayList<>(courierCapacity);
+                while (trip.size() < courierCapacity && !readyForDelivery.isEmpty()) {
+                    trip.add(readyForDelivery.poll());
+                }
+                courier.setRoute(DeliveryRoute.plan(coordinates, trip));
+            }
+            courier.completeWork();
+        }
+    }
+
+    /**
+     * Запланировать распределение заказов в текущий момент
+     * Несколько запросов в один момент объединяются в одно событие
+     */
+    private void requestDispatch() {
+        if (dispatchScheduled) {
+            return;
+        }
+        dispatchScheduled = true;
+        scheduler.scheduleAfter(0, () -> {
+            dispatchScheduled = false;
+            completeOrders();
+        });
+    }
+
+    private void scheduleShiftStart(Worker worker) {
+        if (scheduler != null) {
+            scheduler.schedule(worker.getStartShift(), this::requestDispatch);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,440 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Класс Журнал склада (WarehouseJournal)
+ *
+ * Журнал упреждающей записи изменений склада: приход и списание товара
+ * и жизненный цикл заказов (поступил → собран → доставлен). Записи только
+ * добавляются в конец файла; по журналу после падения JVM восстанавливаются
+ * остатки склада и незавершенные заказы (см. recover).
+ *
+ * Остатки журналируются приращениями количества товара на складе
+ * (поставка +, списание собранного заказа -). Списание собранного товара
+ * и заказы, собранные им, пишутся одной записью ASSEMBLED, поэтому падение
+ * не может разделить их между пачками. Резервы не журналируются:
+ * незавершенная сборка после восстановления начинается заново.
+ *
+ * Записи копятся в буфере и сбрасываются в файл пачками по batchSize записей;
+ * при fsync = true каждая пачка дополнительно сбрасывается на диск (force).
+ * Потеряться может только последняя несброшенная пачка.
+ *
+ * Компакция переписывает журнал текущим состоянием (остатки + живые заказы)
+ * во временный файл и атомарно подменяет им старый. Она выполняется при
+ * подключении к складу и в конце прохода completeOrders, когда с прошлой
+ * компакции накопилось compactionThreshold записей. В режиме событий проход
+ * может закончиться посреди сборки: такой заказ записывается как поступивший
+ * (CREATED), а его зарезервированные единицы - как остаток на складе, так же
+ * как при восстановлении из несжатого журнала.
+ */
+public class WarehouseJournal implements AutoCloseable {
+    private static final int MAGIC = 0x574A524E;  // "WJRN"
+    private static final int VERSION = 3;
+
+    private static final byte PRODUCT = 1;   // Товар: id, название, цена
+    private static final byte STOCK = 2;     // Приращение количества товара на складе
+    private static final byte ORDER = 3;     // Заказ поступил на склад
+    private static final byte STATUS = 4;    // Новый статус заказа
+    private static final byte ASSEMBLED = 5; // Списание собранного товара и собранные им заказы
+
+    private final Path file;
+    private final int batchSize;
+    private final boolean fsync;
+    private final long compactionThreshold;
+
+    private BinaryOutput out;
+    private Warehouse storage;
+    private final BitSet writtenProducts = new BitSet();            // Товары, уже описанные в журнале
+    private final Map<Object, Order> liveOrders = new LinkedHashMap<>(); // Недоставленные заказы
+    private final Set<Object> assembledOrders = new HashSet<>();         // Живые заказы, записанные собранными
+    private int pendingRecords;          // Записей в текущей пачке
+    private long recordsSinceCompaction; // Записей после последней компакции
+
+    /**
+     * Конструктор журнала
+     * Файл создается (перезаписывается) при подключении к складу через Warehouse.setJournal
+     * @param file путь к файлу журнала
+     * @param batchSize сколько записей сбрасывать в файл за раз
+     * @param fsync сбрасывать ли каждую пачку на диск
+     * @param compactionThreshold после скольких записей компактировать журнал
+     */
+    public WarehouseJournal(Path file, int batchSize, boolean fsync, long compactionThreshold) {
+        this.file = file;
+        this.batchSize = Math.max(1, batchSize);
+        this.fsync = fsync;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Подключить журнал к складу и записать его текущее состояние
+     * Вызывается из Warehouse.setJournal
+     */
+    synchronized void attach(Warehouse storage) {
+        this.storage = storage;
+        for (Order order : storage.getOrders()) {
+            liveOrders.put(key(order), order);
+        }
+        for (Order order : storage.getReadyForDelivery()) {
+            liveOrders.put(key(order), order);
+            assembledOrders.add(key(order));
+        }
+        compact();
+    }
+
+    /**
+     * Записать изменение количества товара на складе
+     * @param productId идентификатор товара
+     * @param delta приращение (поставка +, списание -)
+     */
+    synchronized void stockChanged(int productId, int delta) {
+        try {
+            describeProduct(productId);
+            out.writeByte(STOCK);
+            out.writeInt(productId);
+            out.writeInt(delta);
+            recordWritten();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Записать поступление заказа (повторное поступление того же заказа игнорируется)
+     * @param order заказ
+     */
+    synchronized void orderAdded(Order order) {
+        if (liveOrders.putIfAbsent(key(order), order) != null) {
+            return;
+        }
+        try {
+            writeOrder(order);
+            recordWritten();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Записать списание товара вместе с заказами, собранными этим товаром
+     * @param picked списанные строки
+     * @param assembled собранные заказы
+     */
+    synchronized void assemblyCommitted(OrderLines picked, List<Order> assembled) {
+        try {
+            for (int line = 0; line < picked.size(); line++) {
+                describeProduct(picked.productId(line));
+            }
+            out.writeByte(ASSEMBLED);
+            out.writeInt(picked.size());
+            for (int line = 0; line < picked.size(); line++) {
+                out.writeInt(picked.productId(line));
+                out.writeInt(picked.quantity(line));
+            }
+            out.writeInt(assembled.size());
+            for (Order order : assembled) {
+                writeOrderRef(order);
+                assembledOrders.add(key(order));
+            }
+            recordWritten();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Записать новый статус заказа; доставленный заказ перестает быть живым
+     * @param order заказ
+     */
+    synchronized void orderStatusChanged(Order order) {
+        if (order.getStatus() == Order.OrderStatus.DELIVERED) {
+            liveOrders.remove(key(order));
+            assembledOrders.remove(key(order));
+        } else {
+            assembledOrders.add(key(order));
+        }
+        try {
+            out.writeByte(STATUS);
+            writeOrderRef(order);
+            out.writeByte(order.getStatus().ordinal());
+            recordWritten();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Точка, в которой склад не меняет остатки: компакция по порогу
+     * Вызывается в конце прохода completeOrders
+     */
+    synchronized void checkpoint() {
+        if (recordsSinceCompaction >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Сбросить накопленные записи в файл (и на диск при fsync)
+     */
+    public synchronized void flush() {
+        try {
+            if (fsync) {
+                out.sync(false);
+            } else {
+                out.flush();
+            }
+            pendingRecords = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Переписать журнал текущим состоянием склада
+     */
+    public synchronized void compact() {
+        Path temporary = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            if (out != null) {
+                out.close();
+            }
+            writtenProducts.clear();
+            out = new BinaryOutput(temporary);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            StockLedger stock = storage.getStock();
+            for (int productId = 0; productId < ProductCatalog.size(); productId++) {
+                // Резерв еще не списан: единицы собираемых заказов пока на складе
+                int onHand = stock.getAvailable(productId) + stock.getReserved(ProductCatalog.get(productId));
+                if (onHand != 0) {
+                    describeProduct(productId);
+                    out.writeByte(STOCK);
+                    out.writeInt(productId);
+                    out.writeInt(onHand);
+                }
+            }
+            for (Order order : liveOrders.values()) {
+                writeOrder(order);
+                // Собираемый заказ (PROCESSING без записи о сборке) остается поступившим
+                if (assembledOrders.contains(key(order))) {
+                    out.writeByte(STATUS);
+                    writeOrderRef(order);
+                    out.writeByte(order.getStatus().ordinal());
+                }
+            }
+            out.sync(true);
+            out.close();
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            out = new BinaryOutput(FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+            pendingRecords = 0;
+            recordsSinceCompaction = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (fsync) {
+                out.sync(false);
+            }
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Восстановить остатки и незавершенные заказы из журнала
+     *
+     * На целевой склад (без остатков и заказов, с нужными работниками
+     * и поставщиками) добавляются остатки из журнала, заказы в статусе CREATED
+     * возвращаются в очередь, собранные - в очередь на доставку.
+     * Неполная последняя запись (запись, прерванная падением) отбрасывается.
+     *
+     * @param file путь к файлу журнала
+     * @param storage целевой склад
+     * @return количество восстановленных заказов
+     * @throws IOException при ошибке чтения, неверном формате файла
+     *                     или ссылке на неописанный товар
+     */
+    public static int recover(Path file, Warehouse storage) throws IOException {
+        Map<Integer, Product> products = new HashMap<>();
+        Map<Product, Integer> stock = new LinkedHashMap<>();
+        Map<Object, Order> orders = new LinkedHashMap<>();
+        try (BinaryInput in = new BinaryInput(file)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Файл " + file + " не является журналом склада");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия журнала: " + version);
+            }
+            try {
+                while (!in.isAtEnd()) {
+                    byte type = in.readByte();
+                    if (type == PRODUCT) {
+                        int id = in.readInt();
+                        products.put(id, WarehouseSnapshot.resolveProduct(id, in.readString(), in.readDouble()));
+                    } else if (type == STOCK) {
+                        Product product = product(products, in.readInt());
+                        stock.merge(product, in.readInt(), Integer::sum);
+                    } else if (type == ORDER) {
+                        Order order = readOrder(in, products, storage);
+                        orders.putIfAbsent(key(order), order);
+                    } else if (type == ASSEMBLED) {
+                        // Запись применяется только целиком
+                        Product[] picked = new Product[in.readInt()];
+                        int[] quantities = new int[picked.length];
+                        for (int line = 0; line < picked.length; line++) {
+                            picked[line] = product(products, in.readInt());
+                            quantities[line] = in.readInt();
+                        }
+                        Object[] keys = new Object[in.readInt()];
+                        for (int i = 0; i < keys.length; i++) {
+                            keys[i] = readOrderRef(in);
+                        }
+                        for (int line = 0; line < picked.length; line++) {
+                            stock.merge(picked[line], -quantities[line], Integer::sum);
+                        }
+                        for (Object key : keys) {
+                            if (orders.containsKey(key)) {
+                                orders.get(key).updateStatus(Order.OrderStatus.PROCESSING);
+                            }
+                        }
+                    } else if (type == STATUS) {
+                        Object key = readOrderRef(in);
+                        Order.OrderStatus status = Order.OrderStatus.values()[in.readByte()];
+                        if (status == Order.OrderStatus.DELIVERED) {
+                            orders.remove(key);
+                        } else if (orders.containsKey(key)) {
+                            orders.get(key).updateStatus(status);
+                        }
+                    } else {
+                        break;  // Мусор после прерванной записи
+                    }
+                }
+            } catch (EOFException e) {
+                // Последняя запись не дописана - отбрасываем ее
+            }
+        }
+
+        for (Map.Entry<Product, Integer> entry : stock.entrySet()) {
+            if (entry.getValue() > 0) {
+                storage.getStock().add(entry.getKey(), entry.getValue());
+            }
+        }
+        List<Order> ready = new ArrayList<>();
+        for (Order order : orders.values()) {
+            if (order.getStatus() == Order.OrderStatus.CREATED) {
+                storage.queuedOrders().offer(order);
+            } else {
+                ready.add(order);
+            }
+        }
+        storage.getReadyForDelivery().addAll(ready);
+        return orders.size();
+    }
+
+    private void recordWritten() throws IOException {
+        recordsSinceCompaction++;
+        if (++pendingRecords >= batchSize) {
+            if (fsync) {
+                out.sync(false);
+            } else {
+                out.flush();
+            }
+            pendingRecords = 0;
+        }
+    }
+
+    private void describeProduct(int productId) throws IOException {
+        if (!writtenProducts.get(productId)) {
+            writtenProducts.set(productId);
+            Product product = ProductCatalog.get(productId);
+            out.writeByte(PRODUCT);
+            out.writeInt(productId);
+            out.writeString(product.getName());
+            out.writeDouble(product.getPrice());
+        }
+    }
+
+    private void writeOrder(Order order) throws IOException {
+        OrderLines lines = order.getOriginalProducts();
+        for (int line = 0; line < lines.size(); line++) {
+            describeProduct(lines.productId(line));
+        }
+        out.writeByte(ORDER);
+        writeOrderRef(order);
+        out.writeInt(order.getUserCoordinates().getX());
+        out.writeInt(order.getUserCoordinates().getY());
+        out.writeInt(lines.size());
+        for (int line = 0; line < lines.size(); line++) {
+            out.writeInt(lines.productId(line));
+            out.writeInt(lines.quantity(line));
+        }
+        WarehouseSnapshot.writeOptionalTime(out, order.getCreatedAt());
+        WarehouseSnapshot.writeOptionalTime(out, order.getDeadline());
+    }
+
+    private static Order readOrder(BinaryInput in, Map<Integer, Product> products, Warehouse storage)
+            throws IOException {
+        long orderKey = in.readLong();
+        String orderId = orderKey == 0 ? in.readString() : null;
+        Coordinates user = new Coordinates(in.readInt(), in.readInt());
+        int size = in.readInt();
+        OrderLines lines = new OrderLines(size);
+        for (int line = 0; line < size; line++) {
+            lines.add(product(products, in.readInt()).getId(), in.readInt());
+        }
+        Order order = new Order(orderKey, orderId, lines, lines.copy(), user, storage);
+        order.setCreatedAt(WarehouseSnapshot.readOptionalTime(in));
+        order.setDeadline(WarehouseSnapshot.readOptionalTime(in));
+        return order;
+    }
+
+    /**
+     * Товар, описанный ранее записью PRODUCT
+     * @throws IOException если товар в журнале не описан (журнал поврежден)
+     */
+    private static Product product(Map<Integer, Product> products, int id) throws IOException {
+        Product product = products.get(id);
+        if (product == null) {
+            throw new IOException("Журнал поврежден: товар " + id + " не описан");
+        }
+        return product;
+    }
+
+    private void writeOrderRef(Order order) throws IOException {
+        out.writeLong(order.getOrderKey());
+        if (order.getOrderKey() == 0) {
+            out.writeString(order.getOrderId());
+        }
+    }
+
+    private static Object readOrderRef(BinaryInput in) throws IOException {
+        long orderKey = in.readLong();
+        return orderKey == 0 ? in.readString() : orderKey;
+    }
+
+    /**
+     * Ключ заказа в журнале: компактный идентификатор или строковый в режиме READABLE
+     */
+    private static Object key(Order order) {
+        return order.getOrderKey() == 0 ? order.getOrderId() : order.getOrderKey();
+    }
+}
@@ -0,0 +1,202 @@
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Класс Метрики склада (WarehouseMetrics)
+ *
+ * Собирает по ходу симуляции задержки этапов жизненного цикла заказа
+ * (в секундах симулированного времени) в гистограммы и ведет счетчики:
+ * - ожидание в очереди: создание → начало сборки
+ * - ожидание поставки: отложен → пришла поставка
+ * - сборка: начало → конец сборки
+ * - доставка: конец сборки → вручение
+ * - полный цикл: создание → вручение
+ * - глубина очереди (очередь + листы ожидания) в начале каждого прохода
+ * - загрузка работников: занятое время / длительность смен (по учету Worker)
+ * - выполнение поставок: доставлено / запрошено у поставщиков
+ *
+ * Итог выводится отчетом report() в конце прогона.
+ */
+public class WarehouseMetrics {
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final Histogram queueWait = new Histogram();
+    private final Histogram supplyWait = new Histogram();
+    private final Histogram assembly = new Histogram();
+    private final Histogram delivery = new Histogram();
+    private final Histogram endToEnd = new Histogram();
+    private final Histogram queueDepth = new Histogram();
+
+    private long ordersReceived;
+    private long ordersDeferred;
+    private long ordersAssembled;
+    private long ordersDelivered;
+    private long supplyRequested;   // Единиц товара запрошено у поставщиков
+    private long supplyDelivered;   // Единиц товара поставлено
+
+    // Геттеры (гистограммы отдаются копиями, снятыми под блокировкой)
+    public synchronized Histogram getQueueWait() {
+        return queueWait.copy();
+    }
+
+    public synchronized Histogram getSupplyWait() {
+        return supplyWait.copy();
+    }
+
+    public synchronized Histogram getAssembly() {
+        return assembly.copy();
+    }
+
+    public synchronized Histogram getDelivery() {
+        return delivery.copy();
+    }
+
+    public synchronized Histogram getEndToEnd() {
+        return endToEnd.copy();
+    }
+
+    public synchronized Histogram getQueueDepth() {
+        return queueDepth.copy();
+    }
+
+    public synchronized long getOrdersReceived() {
+        return ordersReceived;
+    }
+
+    public synchronized long getOrdersDeferred() {
+        return ordersDeferred;
+    }
+
+    public synchronized long getOrdersAssembled() {
+        return ordersAssembled;
+    }
+
+    public synchronized long getOrdersDelivered() {
+        return ordersDelivered;
+    }
+
+    /**
+     * Доля запрошенного у поставщиков товара, которая была поставлена
+     * @return от 0 до 1 (1, если поставок не запрашивали)
+     */
+    public synchronized double getSupplierFillRate() {
+        return supplyRequested == 0 ? 1 : (double) supplyDelivered / supplyRequested;
+    }
+
+    // Методы учета (вызываются складом и работниками, в том числе из потоков StagedRuntime)
+    synchronized void orderReceived() {
+        ordersReceived++;
+    }
+
+    synchronized void orderDeferred() {
+        ordersDeferred++;
+    }
+
+    synchronized void orderSupplied(Order order) {
+        record(supplyWait, order.getDeferredAt(), order.getSuppliedAt());
+    }
+
+    synchronized void orderAssembled(Order order) {
+        ordersAssembled++;
+        record(queueWait, order.getCreatedAt(), order.getAssemblyStartedAt());
+        record(assembly, order.getAssemblyStartedAt(), order.getAssembledAt());
+    }
+
+    synchronized void orderDelivered(Order order) {
+        ordersDelivered++;
+        record(delivery, order.getAssembledAt(), order.getDeliveredAt());
+        record(endToEnd, order.getCreatedAt(), order.getDeliveredAt());
+    }
+
+    synchronized void queueDepth(int depth) {
+        queueDepth.record(depth);
+    }
+
+    synchronized void supplyRequested(int requested, int delivered) {
+        supplyRequested += requested;
+        supplyDelivered += delivered;
+    }
+
+    /**
+     * Сформировать отчет по складу
+     * @param storage склад (для длительности смен работников)
+     * @return многострочный текстовый отчет
+     */
+    public synchronized String report(Warehouse storage) {
+        StringBuilder report = new StringBuilder();
+        report.append("=== Метрики склада ").append(storage.getId()).append(" ===\n");
+        report.append(String.format("Заказы: поступило %d, отложено %d, собрано %d, доставлено %d%n",
+                ordersReceived, ordersDeferred, ordersAssembled, ordersDelivered));
+        report.append(String.format("%-22s %8s %8s %8s %8s %8s %8s%n",
+                "Этап (сек)", "кол-во", "сред", "p50", "p95", "p99", "макс"));
+        appendRow(report, "Ожидание в очереди", queueWait);
+        appendRow(report, "Ожидание поставки", supplyWait);
+        appendRow(report, "Сборка", assembly);
+        appendRow(report, "Доставка", delivery);
+        appendRow(report, "Полный цикл", endToEnd);
+        appendRow(report, "Глубина очереди", queueDepth);
+        report.append(String.format("Загрузка кладовщиков: %.1f%%%n", 100 * utilization(storage.getStorekeepers())));
+        report.append(String.format("Загрузка курьеров: %.1f%%%n", 100 * utilization(storage.getCouriers())));
+        report.append(String.format("Выполнение поставок: %.1f%% (%d из %d)%n",
+                100 * getSupplierFillRate(), supplyDelivered, supplyRequested));
+
+        report.append(String.format("%-22s %-10s %8s %8s %8s %8s %10s%n",
+                "Работник", "роль", "заказов", "занят,ч", "загр,%", "путь", "руб/заказ"));
+        double staffCost = 0;
+        staffCost += appendWorkers(report, "кладовщик", storage.getStorekeepers());
+        staffCost += appendWorkers(report, "курьер", storage.getCouriers());
+        report.append(String.format("Стоимость смен: %.1f руб., на доставленный заказ: %.1f руб.%n",
+                staffCost, ordersDelivered == 0 ? staffCost : staffCost / ordersDelivered));
+        return report.toString();
+    }
+
+    /**
+     * Добавить в отчет строки работников
+     * @return суммарная стоимость их смен
+     */
+    private static double appendWorkers(StringBuilder report, String role, List<? extends Worker> workers) {
+        double cost = 0;
+        for (Worker worker : workers) {
+            double distance = worker instanceof Courier ? ((Courier) worker).getDistanceTravelled() : 0;
+            report.append(String.format("%-22s %-10s %8d %8.2f %8.1f %8.1f %10.1f%n", worker.getId(), role,
+                    worker.getOrdersHandled(), worker.getBusySeconds() / 3600.0, 100 * worker.getUtilization(),
+                    distance, worker.getCostPerOrder()));
+            cost += worker.getShiftCost();
+        }
+        return cost;
+    }
+
+    private static void appendRow(StringBuilder report, String name, Histogram histogram) {
+        report.append(String.format("%-22s %8d %8.1f %8d %8d %8d %8d%n", name, histogram.getCount(),
+                histogram.getMean(), histogram.getPercentile(50), histogram.getPercentile(95),
+                histogram.getPercentile(99), histogram.getMax()));
+    }
+
+    private static double utilization(List<? extends Worker> workers) {
+        long busySeconds = 0;
+        long shiftSeconds = 0;
+        for (Worker worker : workers) {
+            busySeconds += worker.getBusySeconds();
+            shiftSeconds += worker.getShiftSeconds();
+        }
+        return shiftSeconds == 0 ? 0 : (double) busySeconds / shiftSeconds;
+    }
+
+    /**
+     * Записать интервал между моментами симуляции; интервалы без одного из моментов
+     * (например, у заказов, восстановленных из снимка) не записываются
+     */
+    private static void record(Histogram histogram, LocalTime from, LocalTime to) {
+        if (from != null && to != null) {
+            histogram.record(seconds(from, to));
+        }
+    }
+
+    /**
+     * Секунды между двумя моментами симуляции (с переходом через полночь)
+     */
+    static long seconds(LocalTime from, LocalTime to) {
+        long seconds = to.toSecondOfDay() - from.toSecondOfDay();
+        return seconds < 0 ? seconds + SECONDS_PER_DAY : seconds;
+    }
+}
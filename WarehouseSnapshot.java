@@ -0,0 +1,314 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Класс Снимок склада (WarehouseSnapshot)
+ *
+ * Сохраняет полное состояние склада и часов симуляции в компактный двоичный файл
+ * и восстанавливает его. Каждое восстановление создает независимую копию склада
+ * (свои поставщики, работники и заказы), поэтому из одного снимка можно
+ * запустить сколько угодно вариантов симуляции.
+ *
+ * В снимок входят: время симуляции, товары (название и цена), остатки,
+ * поставщики с оставшимся объемом, кладовщики и курьеры (идентификатор,
+ * смена, статус, заработок, занятое время, число заказов, пройденный путь),
+ * заказы в очереди, в листах ожидания и собранные заказы, ожидающие курьера,
+ * а также настройки склада
+ * (встроенная политика очереди сохраняется, пользовательская восстанавливается как FIFO).
+ *
+ * Снимок снимается между проходами, когда ни один работник не занят заказом.
+ * Запланированные события не сохраняются: после восстановления склад
+ * подключается к новому планировщику через attachScheduler.
+ *
+ * Товары восстанавливаются по идентификатору каталога, если в текущем
+ * каталоге под ним тот же товар, иначе регистрируются заново.
+ */
+public class WarehouseSnapshot {
+    private static final int MAGIC = 0x57534E50;  // "WSNP"
+    private static final int VERSION = 4;
+    // Встроенные политики очереди по коду в файле (пользовательская политика сохраняется как FIFO)
+    private static final QueuePolicy[] QUEUE_POLICIES = {
+            QueuePolicy.FIFO, QueuePolicy.DEADLINE, QueuePolicy.DISTANCE, QueuePolicy.VALUE, QueuePolicy.AGE
+    };
+    private static final long NO_TIME = -1;
+
+    private WarehouseSnapshot() {
+    }
+
+    /**
+     * Записать снимок склада
+     * @param storage склад
+     * @param file путь к файлу снимка (перезаписывается)
+     * @throws IOException при ошибке записи
+     * @throws IllegalStateException если работники склада заняты заказами
+     */
+    public static void write(Warehouse storage, Path file) throws IOException {
+        if (!storage.isQuiescent()) {
+            throw new IllegalStateException("Склад " + storage.getId() + " обрабатывает заказы, снимок невозможен");
+        }
+        try (BinaryOutput out = new BinaryOutput(file)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeOptionalTime(out, SimulationTime.getCurrentTime());
+
+            int products = ProductCatalog.size();
+            out.writeInt(products);
+            for (int id = 0; id < products; id++) {
+                Product product = ProductCatalog.get(id);
+                out.writeString(product.getName());
+                out.writeDouble(product.getPrice());
+            }
+
+            out.writeString(storage.getId());
+            writeCoordinates(out, storage.getCoordinates());
+            out.writeInt(storage.getCourierCapacity());
+            out.writeInt(storage.getWaveSize());
+            out.writeByte(storage.isPartialOrders() ? 1 : 0);
+            out.writeInt(storage.getReplenishmentPolicy().getReorderPoint());
+            out.writeInt(storage.getReplenishmentPolicy().getSafetyStock());
+            out.writeByte(Math.max(0, Arrays.asList(QUEUE_POLICIES).indexOf(storage.getQueuePolicy())));
+            out.writeInt(storage.getDeliveredCount());
+
+            Map<Product, Integer> stock = storage.getStock().snapshot();
+            out.writeInt(stock.size());
+            for (Map.Entry<Product, Integer> entry : stock.entrySet()) {
+                out.writeInt(entry.getKey().getId());
+                out.writeInt(entry.getValue());
+            }
+
+            List<Producer> suppliers = storage.getSuppliers();
+            out.writeInt(suppliers.size());
+            for (Producer supplier : suppliers) {
+                out.writeString(supplier.getId());
+                out.writeString(supplier.getName());
+                out.writeInt(supplier.getProduct().getId());
+                out.writeInt(supplier.getMaxCount());
+            }
+
+            writeWorkers(out, storage.getStorekeepers());
+            writeWorkers(out, storage.getCouriers());
+
+            // Очередь пишется в порядке постановки, чтобы при восстановлении сохранить очередность
+            List<Order> queued = new ArrayList<>(storage.queuedOrders());
+            if (storage.queuedOrders() instanceof OrderQueue) {
+                queued.sort(Comparator.comparingLong(order -> order.queueSequence));
+            }
+            writeOrders(out, queued);
+            writeOrders(out, storage.getReadyForDelivery());
+            Map<Product, Deque<Order>> waitLists = storage.waitLists();
+            out.writeInt(waitLists.size());
+            for (Map.Entry<Product, Deque<Order>> entry : waitLists.entrySet()) {
+                out.writeInt(entry.getKey().getId());
+                writeOrders(out, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Восстановить склад из снимка
+     * Часы симуляции (текущего потока) переводятся на время снимка
+     * @param file путь к файлу снимка
+     * @return новый склад с состоянием из снимка
+     * @throws IOException при ошибке чтения или неверном формате файла
+     */
+    public static Warehouse read(Path file) throws IOException {
+        try (BinaryInput in = new BinaryInput(file)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Файл " + file + " не является снимком склада");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия снимка: " + version);
+            }
+            LocalTime time = readOptionalTime(in);
+            if (time != null) {
+                SimulationTime.setTime(time);
+            }
+
+            Product[] products = new Product[in.readInt()];
+            for (int id = 0; id < products.length; id++) {
+                products[id] = resolveProduct(id, in.readString(), in.readDouble());
+            }
+
+            String id = in.readString();
+            Coordinates coordinates = readCoordinates(in);
+            int courierCapacity = in.readInt();
+            int waveSize = in.readInt();
+            boolean partialOrders = in.readByte() != 0;
+            ReplenishmentPolicy policy = new ReplenishmentPolicy(in.readInt(), in.readInt());
+            QueuePolicy queuePolicy = QUEUE_POLICIES[in.readByte()];
+            int deliveredCount = in.readInt();
+
+            Map<Product, Integer> stock = new HashMap<>();
+            for (int n = in.readInt(); n > 0; n--) {
+                stock.put(products[in.readInt()], in.readInt());
+            }
+            Warehouse storage = new Warehouse(id, stock, coordinates);
+            storage.setCourierCapacity(courierCapacity);
+            storage.setWaveSize(waveSize);
+            storage.setPartialOrders(partialOrders);
+            storage.setReplenishmentPolicy(policy);
+            storage.setQueuePolicy(queuePolicy);
+            storage.restoreDeliveredCount(deliveredCount);
+
+            for (int n = in.readInt(); n > 0; n--) {
+                storage.addSupplier(new Producer(in.readString(), in.readString(), products[in.readInt()], in.readInt()));
+            }
+
+            for (int n = in.readInt(); n > 0; n--) {
+                Warehouseman keeper = new Warehouseman(in.readString(), readTime(in), readTime(in));
+                readWorkerState(in, keeper);
+                storage.addStorekeeper(keeper);
+            }
+            for (int n = in.readInt(); n > 0; n--) {
+                Courier courier = new Courier(in.readString(), readTime(in), readTime(in));
+                readWorkerState(in, courier);
+                storage.addCourier(courier);
+            }
+
+            for (int n = in.readInt(); n > 0; n--) {
+                storage.queuedOrders().offer(readOrder(in, products, storage));
+            }
+            for (int n = in.readInt(); n > 0; n--) {
+                storage.getReadyForDelivery().offer(readOrder(in, products, storage));
+            }
+            for (int lists = in.readInt(); lists > 0; lists--) {
+                Product product = products[in.readInt()];
+                for (int n = in.readInt(); n > 0; n--) {
+                    storage.restoreWaiting(product, readOrder(in, products, storage));
+                }
+            }
+            return storage;
+        }
+    }
+
+    /**
+     * Найти товар из файла в текущем каталоге или зарегистрировать его заново
+     * @param id идентификатор товара в файле
+     * @param name название
+     * @param price цена
+     * @return товар текущего каталога
+     */
+    static Product resolveProduct(int id, String name, double price) {
+        if (id < ProductCatalog.size()) {
+            Product existing = ProductCatalog.get(id);
+            if (existing.getName().equals(name) && existing.getPrice() == price) {
+                return existing;
+            }
+        }
+        return new Product(name, price);
+    }
+
+    private static void writeCoordinates(BinaryOutput out, Coordinates coordinates) throws IOException {
+        out.writeInt(coordinates.getX());
+        out.writeInt(coordinates.getY());
+    }
+
+    private static Coordinates readCoordinates(BinaryInput in) throws IOException {
+        return new Coordinates(in.readInt(), in.readInt());
+    }
+
+    private static LocalTime readTime(BinaryInput in) throws IOException {
+        return LocalTime.ofNanoOfDay(in.readLong());
+    }
+
+    /**
+     * Записать время, которого может не быть (null)
+     */
+    static void writeOptionalTime(BinaryOutput out, LocalTime time) throws IOException {
+        out.writeLong(time == null ? NO_TIME : time.toNanoOfDay());
+    }
+
+    static LocalTime readOptionalTime(BinaryInput in) throws IOException {
+        long time = in.readLong();
+        return time == NO_TIME ? null : LocalTime.ofNanoOfDay(time);
+    }
+
+    private static void writeWorkers(BinaryOutput out, List<? extends Worker> workers) throws IOException {
+        out.writeInt(workers.size());
+        for (Worker worker : workers) {
+            out.writeString(worker.getId());
+            out.writeLong(worker.getStartShift().toNanoOfDay());
+            out.writeLong(worker.getEndShift().toNanoOfDay());
+            out.writeByte(worker.getStatus().ordinal());
+            out.writeFloat(worker.getMoney());
+            out.writeLong(worker.getBusySeconds());
+            out.writeInt(worker.getOrdersHandled());
+            out.writeDouble(worker instanceof Courier ? ((Courier) worker).getDistanceTravelled() : 0);
+        }
+    }
+
+    private static void readWorkerState(BinaryInput in, Worker worker) throws IOException {
+        worker.setStatus(Worker.Status.values()[in.readByte()]);
+        worker.money = in.readFloat();
+        worker.busySeconds = in.readLong();
+        worker.ordersHandled = in.readInt();
+        double distance = in.readDouble();
+        if (worker instanceof Courier) {
+            ((Courier) worker).restoreDistanceTravelled(distance);
+        }
+    }
+
+    private static void writeOrders(BinaryOutput out, Collection<Order> orders) throws IOException {
+        out.writeInt(orders.size());
+        for (Order order : orders) {
+            out.writeLong(order.getOrderKey());
+            if (order.getOrderKey() == 0) {
+                out.writeString(order.getOrderId());
+            }
+            writeCoordinates(out, order.getUserCoordinates());
+            writeLines(out, order.getOriginalProducts());
+            writeLines(out, order.getProducts());
+            out.writeByte(order.getStatus().ordinal());
+            out.writeString(order.getCourierId());
+            out.writeByte((order.getEnoughInStorage() ? 1 : 0) | (order.isPartial() ? 2 : 0));
+            writeOptionalTime(out, order.getCreatedAt());
+            writeOptionalTime(out, order.getDeadline());
+        }
+    }
+
+    private static Order readOrder(BinaryInput in, Product[] products, Warehouse storage) throws IOException {
+        long key = in.readLong();
+        String orderId = key == 0 ? in.readString() : null;
+        Coordinates user = readCoordinates(in);
+        OrderLines original = readLines(in, products);
+        OrderLines current = readLines(in, products);
+        Order order = new Order(key, orderId, original, current, user, storage);
+        order.updateStatus(Order.OrderStatus.values()[in.readByte()]);
+        order.assignCourier(in.readString());
+        int flags = in.readByte();
+        order.setEnoughInStorage((flags & 1) != 0);
+        if ((flags & 2) != 0) {
+            order.markAsPartial();
+        }
+        order.setCreatedAt(readOptionalTime(in));
+        order.setDeadline(readOptionalTime(in));
+        return order;
+    }
+
+    private static void writeLines(BinaryOutput out, OrderLines lines) throws IOException {
+        out.writeInt(lines.size());
+        for (int line = 0; line < lines.size(); line++) {
+            out.writeInt(lines.productId(line));
+            out.writeInt(lines.quantity(line));
+        }
+    }
+
+    private static OrderLines readLines(BinaryInput in, Product[] products) throws IOException {
+        int size = in.readInt();
+        OrderLines lines = new OrderLines(size);
+        for (int line = 0; line < size; line++) {
+            lines.add(products[in.readInt()].getId(), in.readInt());
+        }
+        return lines;
+    }
+}
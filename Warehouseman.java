@@ -1,5 +1,7 @@
 import java.time.LocalTime;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Класс Кладовщик (Сборщик)
@@ -8,6 +10,11 @@ import java.util.Map;
  * и обновление складских запасов. Наследуется от абстрактного класса Worker.
  */
 public class Warehouseman extends Worker {
+    private static final int PICK_LOCATION_SECONDS = 45; // Подход к ячейке товара в волне
+    private static final int UNIT_HANDLING_SECONDS = 5;  // Взять и разложить одну единицу товара
+
+    private List<Order> wave = Collections.emptyList();  // Заказы текущей волны сборки
+
     /**
      * Конструктор кладовщика
      * @param startShift начало смены
@@ -17,58 +24,169 @@ public class Warehouseman extends Worker {
         super(startShift, endShift);
     }
 
+    Warehouseman(String id, LocalTime startShift, LocalTime endShift) {
+        super(id, startShift, endShift);
+    }
+
+    /**
+     * Назначить кладовщику волну заказов для совместной сборки
+     * @param orders заказы волны
+     */
+    public void setWave(List<Order> orders) {
+        this.wave = orders;
+        this.currentOrder = orders.get(0);
+    }
+
     /**
      * Выполнить работу по сборке заказа
      *
      * Логика работы:
      * 1. Проверяет возможность обработки заказа
-     * 2. При нехватке товаров - возвращает заказ на склад
+     * 2. При нехватке товаров - возвращает заказ в очередь склада (requeue)
      * 3. Рассчитывает время сборки (45 сек/товар)
-     * 4. Уменьшает остатки на складе
+     * 4. Резервирует товары и списывает их по окончании сборки
      * 5. Передает заказ на следующий этап
+     *
+     * Если склад подключен к планировщику событий, кладовщик остается занят
+     * до события завершения сборки, а часы симуляции не сдвигаются.
      */
     @Override
     public void completeWork() {
         if (currentOrder == null) {
             return;
         }
+        if (!wave.isEmpty()) {
+            completeWave();
+            return;
+        }
+
+        Warehouse storage = currentOrder.getStorage();
+        StockLedger stock = storage.getStock();
+        OrderLines orderProducts = currentOrder.getProducts();
+
+        // Резервирование всех товаров заказа перед сборкой
+        if (!stock.tryReserveAll(orderProducts)) {
+            for (int line = 0; line < orderProducts.size(); line++) {
+                if (stock.getAvailable(orderProducts.productId(line)) < orderProducts.quantity(line)) {
+                    SimulationLog.product(LogEvent.Type.STOCK_SHORTAGE, currentOrder, orderProducts.product(line));
+                }
+            }
+            SimulationLog.order(LogEvent.Type.ASSEMBLY_SUSPENDED, currentOrder);
+            Order suspended = currentOrder;
+            currentOrder = null;
+            storage.storekeeperReleased(this);
+            storage.requeue(suspended);
+            return;
+        }
+
+        int totalItems = orderProducts.totalItems();
+
+        startWork();
+        currentOrder.updateStatus(Order.OrderStatus.PROCESSING);
+        currentOrder.markAssemblyStarted();
+        SimulationLog.worker(LogEvent.Type.ORDER_ASSEMBLED, id, currentOrder);
+
+        int assemblyTime = 45 * totalItems;
+        Order order = currentOrder;
+        EventScheduler scheduler = storage.getScheduler();
+
+        if (scheduler == null) {
+            SimulationTime.addSeconds(assemblyTime);
+            storage.commitAssembly(orderProducts, Collections.singletonList(order));
+            currentOrder = null;
+            finishWork(assemblyTime, 1);
+            storage.storekeeperReleased(this);
+            storage.orderAssembled(order);
+        } else {
+            scheduler.scheduleAfter(assemblyTime, () -> {
+                storage.commitAssembly(orderProducts, Collections.singletonList(order));
+                currentOrder = null;
+                finishWork(assemblyTime, 1);
+                storage.storekeeperReleased(this);
+                storage.orderAssembled(order);
+            });
+        }
+    }
 
+    /**
+     * Собрать волну заказов
+     *
+     * Логика работы:
+     * 1. Суммирует строки заказов волны по товарам; заказы, на которые уже
+     *    не хватает остатка, возвращаются в очередь склада
+     * 2. Резервирует и списывает каждый товар один раз на всю волну
+     * 3. Время сборки: 45 сек на каждую ячейку (различный товар) + 5 сек на единицу товара
+     * 4. Передает все заказы волны на доставку
+     */
+    private void completeWave() {
+        List<Order> orders = wave;
+        wave = Collections.emptyList();
         Warehouse storage = currentOrder.getStorage();
-        Map<Product, Integer> stock = storage.getStock();
-        Map<Product, Integer> orderProducts = currentOrder.getProducts();
-        boolean canComplete = true;
-
-        // Проверка наличия товаров перед списанием
-        for (Map.Entry<Product, Integer> entry : orderProducts.entrySet()) {
-            Product p = entry.getKey();
-            int quantity = entry.getValue();
-            if (stock.getOrDefault(p, 0) < quantity) {
-                System.out.println("Недостаточно товара '" + p.getName() +
-                        "' для заказа " + currentOrder.getOrderId());
-                canComplete = false;
+        StockLedger stock = storage.getStock();
+        OrderLines waveLines = new OrderLines();
+        List<Order> picked = new ArrayList<>(orders.size());
+
+        for (Order order : orders) {
+            if (fits(order.getProducts(), waveLines, stock)) {
+                OrderLines lines = order.getProducts();
+                for (int line = 0; line < lines.size(); line++) {
+                    waveLines.add(lines.productId(line), lines.quantity(line));
+                }
+                picked.add(order);
+            } else {
+                SimulationLog.order(LogEvent.Type.ASSEMBLY_SUSPENDED, order);
+                storage.requeue(order);
             }
         }
 
-        if (!canComplete) {
-            System.out.println("Сборка заказа " + currentOrder.getOrderId() + " приостановлена");
+        if (picked.isEmpty() || !stock.tryReserveAll(waveLines)) {
+            for (Order order : picked) {
+                SimulationLog.order(LogEvent.Type.ASSEMBLY_SUSPENDED, order);
+                storage.requeue(order);
+            }
             currentOrder = null;
+            storage.storekeeperReleased(this);
             return;
         }
 
-        int totalItems = 0;
-        for (Map.Entry<Product, Integer> entry : orderProducts.entrySet()) {
-            Product p = entry.getKey();
-            int quantity = entry.getValue();
-            stock.put(p, stock.get(p) - quantity);
-            totalItems += quantity;
+        startWork();
+        for (Order order : picked) {
+            order.updateStatus(Order.OrderStatus.PROCESSING);
+            order.markAssemblyStarted();
+            SimulationLog.worker(LogEvent.Type.ORDER_ASSEMBLED, id, order);
         }
 
-        currentOrder.updateStatus(Order.OrderStatus.PROCESSING);
-        System.out.println("Заказ " + currentOrder.getOrderId() + " собран и готов к доставке");
+        int assemblyTime = PICK_LOCATION_SECONDS * waveLines.size() + UNIT_HANDLING_SECONDS * waveLines.totalItems();
+        EventScheduler scheduler = storage.getScheduler();
 
-        int assemblyTime = 45 * totalItems;
-        SimulationTime.addSeconds(assemblyTime);
+        if (scheduler == null) {
+            SimulationTime.addSeconds(assemblyTime);
+            finishWave(storage, waveLines, picked, assemblyTime);
+        } else {
+            scheduler.scheduleAfter(assemblyTime, () -> finishWave(storage, waveLines, picked, assemblyTime));
+        }
+    }
 
+    private void finishWave(Warehouse storage, OrderLines waveLines, List<Order> picked, int assemblyTime) {
+        storage.commitAssembly(waveLines, picked);
         currentOrder = null;
+        finishWork(assemblyTime, picked.size());
+        storage.storekeeperReleased(this);
+        for (Order order : picked) {
+            storage.orderAssembled(order);
+        }
+    }
+
+    /**
+     * Проверить, хватит ли остатка на заказ вместе с уже набранной волной
+     */
+    private static boolean fits(OrderLines lines, OrderLines waveLines, StockLedger stock) {
+        for (int line = 0; line < lines.size(); line++) {
+            int productId = lines.productId(line);
+            if (waveLines.quantityOf(productId) + lines.quantity(line) > stock.getAvailable(productId)) {
+                return false;
+            }
+        }
+        return true;
     }
 }
\ No newline at end of file
@@ -8,6 +8,8 @@ import java.time.LocalTime;
  * Содержит общую логику учета рабочего времени, расчета зарплаты и управления статусами.
  */
 public abstract class Worker {
+    private static final int HOURLY_RATE = 300;  // Оплата часа смены, руб.
+
     /**
      * Статусы работника:
      * NOT_WORKING - не работает (вне смены)
@@ -38,6 +40,8 @@ public abstract class Worker {
     protected Status status;                // Текущий статус
     protected Order currentOrder;           // Текущий обрабатываемый заказ
     protected float money;                  // Заработанные деньги
+    protected long busySeconds;             // Занятое работой время смены (симулированные секунды)
+    protected int ordersHandled;            // Обработано заказов (собрано или доставлено)
 
     /**
      * Конструктор работника
@@ -45,7 +49,17 @@ public abstract class Worker {
      * @param endShift конец смены
      */
     public Worker(LocalTime startShift, LocalTime endShift) {
-        this.id = IdGenerator.generateId(IdGenerator.ObjectType.WORKER);
+        this(IdGenerator.generateId(IdGenerator.ObjectType.WORKER), startShift, endShift);
+    }
+
+    /**
+     * Конструктор работника с известным идентификатором (восстановление из снимка)
+     * @param id идентификатор работника
+     * @param startShift начало смены
+     * @param endShift конец смены
+     */
+    protected Worker(String id, LocalTime startShift, LocalTime endShift) {
+        this.id = id;
         this.startShift = startShift;
         this.endShift = endShift;
         this.status = Status.NOT_WORKING;
@@ -77,6 +91,55 @@ public abstract class Worker {
         return money;
     }
 
+    public long getBusySeconds() {
+        return busySeconds;
+    }
+
+    public int getOrdersHandled() {
+        return ordersHandled;
+    }
+
+    /**
+     * Получить длительность смены
+     * @return секунды от начала до конца смены
+     */
+    public long getShiftSeconds() {
+        return Duration.between(startShift, endShift).getSeconds();
+    }
+
+    /**
+     * Получить время смены, не занятое работой
+     * @return секунды простоя (не меньше 0)
+     */
+    public long getIdleSeconds() {
+        return Math.max(0, getShiftSeconds() - busySeconds);
+    }
+
+    /**
+     * Получить загрузку работника
+     * @return доля смены, занятая работой (0, если смена нулевая)
+     */
+    public double getUtilization() {
+        long shiftSeconds = getShiftSeconds();
+        return shiftSeconds == 0 ? 0 : (double) busySeconds / shiftSeconds;
+    }
+
+    /**
+     * Получить стоимость смены работника (как в calculateSalary)
+     * @return полные часы смены × ставка
+     */
+    public float getShiftCost() {
+        return (int) Duration.between(startShift, endShift).toHours() * HOURLY_RATE;
+    }
+
+    /**
+     * Получить стоимость смены в расчете на один обработанный заказ
+     * @return стоимость смены / количество заказов (стоимость смены, если заказов не было)
+     */
+    public double getCostPerOrder() {
+        return ordersHandled == 0 ? getShiftCost() : (double) getShiftCost() / ordersHandled;
+    }
+
     // Сеттеры
     public void setCurrentOrder(Order currentOrder) {
         this.currentOrder = currentOrder;
@@ -86,6 +149,24 @@ public abstract class Worker {
         this.status = status;
     }
 
+    /**
+     * Отметить начало работы над заказом
+     */
+    void startWork() {
+        status = Status.BUSY;
+    }
+
+    /**
+     * Учесть завершенную работу и освободить работника
+     * @param seconds сколько длилась работа
+     * @param orders сколько заказов обработано
+     */
+    void finishWork(long seconds, int orders) {
+        busySeconds += seconds;
+        ordersHandled += orders;
+        status = Status.NOT_WORKING;
+    }
+
     /**
      * Проверить, работает ли сотрудник в текущее время
      * @return true если текущее время внутри рабочей смены
@@ -101,12 +182,12 @@ public abstract class Worker {
      *
      * Формула: длительность смены (часы) × 300 руб/час
      * После расчета автоматически устанавливает статус SHIFT_ENDED
+     * (загрузку и стоимость заказа см. getUtilization и getCostPerOrder)
      */
     public void calculateSalary() {
-        int hours = (int) Duration.between(startShift, endShift).toHours();
-        money = hours * 300;
+        money = getShiftCost();
         status = Status.SHIFT_ENDED;
-        System.out.println("Работник " + id + " заработал: " + money + " руб.");
+        SimulationLog.salary(id, money);
     }
 
     /**
@@ -114,4 +195,4 @@ public abstract class Worker {
      * Реализуется в конкретных классах-наследниках
      */
     public abstract void completeWork();
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Класс Пул работников (WorkerPool)
+ *
+ * Хранит свободных работников склада, сгруппированных по окну смены.
+ * Вместо проверки isWorking() у каждого работника проверяется только окно
+ * смены группы, а свободный работник берется из начала очереди группы.
+ * Работник попадает в пул при добавлении и возвращается в него после освобождения.
+ *
+ * @param <W> тип работника (кладовщик или курьер)
+ */
+public class WorkerPool<W extends Worker> {
+    private final List<W> workers = new ArrayList<>();                  // Все работники пула
+    private final List<ShiftGroup<W>> groups = new ArrayList<>();       // Группы в порядке появления
+    private final Map<Long, ShiftGroup<W>> groupsByShift = new HashMap<>(); // Окно смены → группа
+    private final Set<W> idle = Collections.newSetFromMap(new IdentityHashMap<>()); // Свободные работники
+
+    /**
+     * Добавить свободного работника
+     * @param worker работник
+     */
+    public void add(W worker) {
+        workers.add(worker);
+        if (idle.add(worker)) {
+            groupOf(worker).idle.offerLast(worker);
+        }
+    }
+
+    /**
+     * Взять свободного работника, чья смена идет в текущее время
+     * @return работник или null, если свободных нет
+     */
+    public W acquire() {
+        LocalTime currentTime = SimulationTime.getCurrentTime();
+        for (ShiftGroup<W> group : groups) {
+            if (!group.idle.isEmpty() && group.isActive(currentTime)) {
+                W worker = group.idle.pollFirst();
+                idle.remove(worker);
+                return worker;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Проверить, есть ли свободный работник на смене
+     * @return true если acquire() вернет работника
+     */
+    public boolean hasAvailable() {
+        LocalTime currentTime = SimulationTime.getCurrentTime();
+        for (ShiftGroup<W> group : groups) {
+            if (!group.idle.isEmpty() && group.isActive(currentTime)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Вернуть работника в пул свободных
+     * Повторное освобождение уже свободного работника игнорируется
+     * @param worker работник
+     */
+    public void release(W worker) {
+        if (idle.add(worker)) {
+            groupOf(worker).idle.offerFirst(worker);
+        }
+    }
+
+    /**
+     * Проверить, что все работники пула свободны
+     * @return true если ни один работник не взят через acquire()
+     */
+    public boolean allIdle() {
+        return idle.size() == workers.size();
+    }
+
+    public List<W> getWorkers() {
+        return Collections.unmodifiableList(workers);
+    }
+
+    private ShiftGroup<W> groupOf(W worker) {
+        long key = shiftKey(worker.getStartShift(), worker.getEndShift());
+        ShiftGroup<W> group = groupsByShift.get(key);
+        if (group == null) {
+            group = new ShiftGroup<>(worker.getStartShift(), worker.getEndShift());
+            groupsByShift.put(key, group);
+            groups.add(group);
+        }
+        return group;
+    }
+
+    private static long shiftKey(LocalTime start, LocalTime end) {
+        return ((long) start.toSecondOfDay() << 32) | end.toSecondOfDay();
+    }
+
+    /**
+     * Свободные работники с одинаковым окном смены
+     */
+    private static final class ShiftGroup<W> {
+        private final LocalTime startShift;
+        private final LocalTime endShift;
+        private final Deque<W> idle = new ArrayDeque<>();
+
+        private ShiftGroup(LocalTime startShift, LocalTime endShift) {
+            this.startShift = startShift;
+            this.endShift = endShift;
+        }
+
+        private boolean isActive(LocalTime currentTime) {
+            return !currentTime.isBefore(startShift) && !currentTime.isAfter(endShift);
+        }
+    }
+}